@@ -0,0 +1,91 @@
+package org.hrd.hibernatejpa01.benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.hrd.hibernatejpa01.HibernateJpa01Application;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application without a web server for a benchmark trial. The database is an embedded
+ * PostgreSQL started once per benchmark JVM, unless {@code -Dbenchmark.datasource.url} points at
+ * an existing one. Seeding empties the products table, so it refuses to run against an existing
+ * database unless {@code -Dbenchmark.allowDestructiveSeed=true} says that is what you want.
+ */
+final class BenchmarkApplication {
+
+    private static EmbeddedPostgres postgres;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> all = new ArrayList<>();
+        all.add("spring.datasource.url=" + jdbcUrl());
+        all.add("spring.jpa.show-sql=false");
+        all.addAll(List.of(properties));
+        return new SpringApplicationBuilder(HibernateJpa01Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(all.toArray(String[]::new))
+                .run();
+    }
+
+    private static synchronized String jdbcUrl() {
+        String configured = System.getProperty("benchmark.datasource.url");
+        if (configured != null) {
+            return configured;
+        }
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            EmbeddedPostgres started = postgres;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    started.close();
+                } catch (IOException ignored) {
+                    // the process is exiting anyway
+                }
+            }));
+        }
+        return postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true";
+    }
+
+    /**
+     * Replaces the catalog with {@code rows} generated products (ids 1..rows, about 2% of them
+     * below a quantity of 10) in one set-based INSERT, then vacuums so index-only scans apply.
+     */
+    static void seedProducts(ConfigurableApplicationContext context, int rows) {
+        if (System.getProperty("benchmark.datasource.url") != null && !Boolean.getBoolean("benchmark.allowDestructiveSeed")) {
+            throw new IllegalStateException("Seeding truncates products in " + System.getProperty("benchmark.datasource.url")
+                    + "; point the benchmark at a throwaway database and pass -Pbenchmark.allowDestructiveSeed=true");
+        }
+        try (Connection connection = context.getBean(DataSource.class).getConnection();
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("truncate products");
+            statement.execute("""
+                    insert into products (id, name, price, quantity, version)
+                    select g, 'item ' || substr(md5(g::text), 1, 12), 1 + g % 1000, g % 500, 0
+                    from generate_series(1, %d) g""".formatted(rows));
+            // past the seeded ids, like V1 does for pre-existing rows
+            statement.execute("select setval('products_seq', %d + 50)".formatted(rows));
+            connection.commit();
+            connection.setAutoCommit(true);
+            statement.execute("vacuum analyze products");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not seed " + rows + " products", e);
+        }
+    }
+}
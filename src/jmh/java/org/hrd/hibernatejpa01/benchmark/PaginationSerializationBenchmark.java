@@ -0,0 +1,51 @@
+package org.hrd.hibernatejpa01.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hrd.hibernatejpa01.model.dto.response.ApiResponse;
+import org.hrd.hibernatejpa01.model.dto.response.PaginationResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductPageResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductResponse;
+import org.hrd.hibernatejpa01.util.CursorCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of a product page response, the last step of every list request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class PaginationSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pageSize;
+
+    // configured like the application's mapper (JavaTimeModule for the response timestamp)
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private ProductPageResponse page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ProductResponse> products = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            products.add(new ProductResponse(1_000_000L + i, "item " + Integer.toHexString(i * 7919), 9.99 + i, i % 500, 0L));
+        }
+        page = new ProductPageResponse(products, new PaginationResponse(
+                null, null, pageSize, null, CursorCodec.encode(1_000_000L + pageSize - 1), true));
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(ApiResponse.<ProductPageResponse>builder()
+                .message("Products fetched successfully")
+                .payload(page)
+                .status(200)
+                .build());
+    }
+}
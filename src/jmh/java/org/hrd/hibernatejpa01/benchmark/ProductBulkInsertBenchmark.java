@@ -0,0 +1,55 @@
+package org.hrd.hibernatejpa01.benchmark;
+
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows/sec of {@link ProductService#createProducts(List)} for a 10k-row import.
+ * batchSize=1 sends one INSERT per round trip like the old IDENTITY mapping did,
+ * the larger values show the effect of JDBC batching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ProductBulkInsertBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"1", "50", "500"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private List<ProductRequest> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("product.bulk.batch-size=" + batchSize);
+        productService = context.getBean(ProductService.class);
+
+        requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            requests.add(new ProductRequest("bench-product-" + i, 9.99, 1 + i % 1000));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Product> createProducts() {
+        return productService.createProducts(requests);
+    }
+}
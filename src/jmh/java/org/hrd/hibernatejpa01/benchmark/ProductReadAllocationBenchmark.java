@@ -0,0 +1,78 @@
+package org.hrd.hibernatejpa01.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.dto.response.ApiResponse;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.service.ProductService;
+import org.hrd.hibernatejpa01.util.CursorCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one list read from query to JSON bytes: managed entities with reflective serialization
+ * against the ProductResponse projection path the endpoints use. Read gc.alloc.rate.norm
+ * (bytes allocated per request) from the gc profiler enabled in build.gradle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ProductReadAllocationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private EntityManager entityManager;
+    private ObjectMapper objectMapper;
+    private Long firstId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        productService = context.getBean(ProductService.class);
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        List<ProductRequest> requests = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            requests.add(new ProductRequest("alloc-product-" + i, 9.99, 1 + i));
+        }
+        firstId = productService.createProducts(requests).get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] entityPage() throws Exception {
+        List<Product> products = entityManager
+                .createQuery("select p from Product p where p.id >= :firstId order by p.id", Product.class)
+                .setParameter("firstId", firstId)
+                .setMaxResults(pageSize)
+                .getResultList();
+        byte[] json = objectMapper.writeValueAsBytes(ApiResponse.builder().payload(products).status(200).build());
+        entityManager.clear();
+        return json;
+    }
+
+    @Benchmark
+    public byte[] projectedPage() throws Exception {
+        return objectMapper.writeValueAsBytes(ApiResponse.builder()
+                .payload(productService.getProductsAfter(CursorCodec.encode(firstId - 1), pageSize))
+                .status(200)
+                .build());
+    }
+}
@@ -0,0 +1,78 @@
+package org.hrd.hibernatejpa01.benchmark;
+
+import org.hrd.hibernatejpa01.model.dto.response.LowStockProduct;
+import org.hrd.hibernatejpa01.model.dto.response.ProductResponse;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.repository.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the {@link ProductRepository} hot paths against catalogs of 10k to 10M rows.
+ * findById is served by the second-level cache once an id has been read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ProductRepositoryBenchmark {
+
+    private static final int PAGE = 20;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.seedProducts(context, tableSize);
+        productRepository = context.getBean(ProductRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Product findById() {
+        return productRepository.getProductById(1L + ThreadLocalRandom.current().nextInt(tableSize));
+    }
+
+    @Benchmark
+    public List<ProductResponse> offsetPage() {
+        return productRepository.getAllProducts(ThreadLocalRandom.current().nextInt(tableSize - PAGE), PAGE);
+    }
+
+    @Benchmark
+    public List<ProductResponse> keysetPage() {
+        return productRepository.getProductsAfter((long) ThreadLocalRandom.current().nextInt(tableSize - PAGE), PAGE);
+    }
+
+    @Benchmark
+    public List<ProductResponse> search() {
+        // seeded names end in 12 hex chars; four random ones match a handful of rows
+        return productRepository.findProductBySearchName(
+                String.format("%04x", ThreadLocalRandom.current().nextInt(0x10000)), PAGE);
+    }
+
+    @Benchmark
+    public List<LowStockProduct> lowStock() {
+        return productRepository.getLowStockProducts(10, -1, 0L, 100);
+    }
+
+    @Benchmark
+    public Product insert() {
+        Product product = Product.builder().name("bench-insert").price(9.99).quantity(10).build();
+        productRepository.createProducts(List.of(product));
+        return product;
+    }
+}
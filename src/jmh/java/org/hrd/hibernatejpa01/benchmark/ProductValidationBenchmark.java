@@ -0,0 +1,40 @@
+package org.hrd.hibernatejpa01.benchmark;
+
+import org.hrd.hibernatejpa01.model.dto.request.ProductPatchRequest;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.service.implementation.ProductRequestValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row cost of the validation every create, import and bulk update path runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ProductValidationBenchmark {
+
+    private final ProductRequestValidator validator = new ProductRequestValidator();
+
+    private final ProductRequest valid = new ProductRequest("  Wireless keyboard  ", 29.99, 40);
+    private final ProductRequest invalid = new ProductRequest("Wireless keyboard", -1.0, 40);
+    private final ProductPatchRequest patch = new ProductPatchRequest(42L, null, 31.5, null);
+
+    @Benchmark
+    public String validCreate() {
+        return validator.validateForCreate(valid);
+    }
+
+    @Benchmark
+    public String invalidCreate() {
+        return validator.validateForCreate(invalid);
+    }
+
+    @Benchmark
+    public String patch() {
+        return validator.validateForPatch(patch);
+    }
+}
@@ -0,0 +1,79 @@
+package org.hrd.hibernatejpa01.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hrd.hibernatejpa01.config.ColumnarProductMessageConverter;
+import org.hrd.hibernatejpa01.model.dto.response.ApiResponse;
+import org.hrd.hibernatejpa01.model.dto.response.PaginationResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductPageResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductResponse;
+import org.hrd.hibernatejpa01.util.CursorCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization CPU of a product page in each negotiable response format. Bytes on the wire, raw
+ * and gzip-compressed as server.compression would send them, are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ResponseFormatBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pageSize;
+
+    @Param({"json", "smile", "cbor", "columnar"})
+    public String format;
+
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+    private final ColumnarProductMessageConverter columnar = new ColumnarProductMessageConverter(cborMapper);
+
+    private ApiResponse<ProductPageResponse> response;
+    private ByteArrayOutputStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<ProductResponse> products = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            products.add(new ProductResponse(1_000_000L + i, "item " + Integer.toHexString(i * 7919), 9.99 + i, i % 500, 0L));
+        }
+        response = ApiResponse.<ProductPageResponse>builder()
+                .message("Products fetched successfully")
+                .payload(new ProductPageResponse(products, new PaginationResponse(
+                        null, null, pageSize, null, CursorCodec.encode(1_000_000L + pageSize - 1), true)))
+                .status(200)
+                .build();
+        out = new ByteArrayOutputStream(64 * 1024);
+
+        serialize();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            out.writeTo(gzip);
+        }
+        System.out.printf("%n%s, %d products: %d bytes, %d bytes gzip%n", format, pageSize, out.size(), compressed.size());
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        out.reset();
+        switch (format) {
+            case "json" -> jsonMapper.writeValue(out, response);
+            case "smile" -> smileMapper.writeValue(out, response);
+            case "cbor" -> cborMapper.writeValue(out, response);
+            case "columnar" -> columnar.write(response, out);
+            default -> throw new IllegalArgumentException(format);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,55 @@
+package org.hrd.hibernatejpa01.benchmark;
+
+import org.hrd.hibernatejpa01.exception.ConflictException;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.dto.response.StockLevelResponse;
+import org.hrd.hibernatejpa01.service.ProductService;
+import org.hrd.hibernatejpa01.service.StockService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decrements/sec on a single hot SKU with 200 threads competing for its row. Every decrement is
+ * one conditional UPDATE, so no update is lost however the threads interleave.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Threads(200)
+public class StockContentionBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private StockService stockService;
+    private Long productId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "spring.datasource.hikari.maximum-pool-size=50",
+                "spring.datasource.hikari.connection-timeout=30000");
+        stockService = context.getBean(StockService.class);
+        productId = context.getBean(ProductService.class)
+                .createProducts(List.of(new ProductRequest("hot-sku", 1.0, 100001)))
+                .get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public StockLevelResponse decrement() {
+        try {
+            return stockService.decreaseStock(productId, 1);
+        } catch (ConflictException soldOut) {
+            // refill and keep measuring; refills are rare compared to decrements
+            return stockService.increaseStock(productId, 100000);
+        }
+    }
+}
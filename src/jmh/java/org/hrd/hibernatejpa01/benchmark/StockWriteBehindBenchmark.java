@@ -0,0 +1,61 @@
+package org.hrd.hibernatejpa01.benchmark;
+
+import org.hrd.hibernatejpa01.exception.ConflictException;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.dto.response.StockLevelResponse;
+import org.hrd.hibernatejpa01.service.ProductService;
+import org.hrd.hibernatejpa01.service.StockService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decrements/sec on a single hot SKU with the write-behind buffer on, next to the same workload
+ * going to the database per request. Target for the buffered mode: 50k decrements/sec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Threads(200)
+public class StockWriteBehindBenchmark {
+
+    @Param({"true", "false"})
+    public boolean writeBehind;
+
+    private ConfigurableApplicationContext context;
+    private StockService stockService;
+    private Long productId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkApplication.start(
+                "spring.datasource.hikari.maximum-pool-size=50",
+                "spring.datasource.hikari.connection-timeout=30000",
+                "product.stock.write-behind.enabled=" + writeBehind,
+                "product.stock.write-behind.journal-dir=" + Files.createTempDirectory("stock-journal"));
+        stockService = context.getBean(StockService.class);
+        productId = context.getBean(ProductService.class)
+                .createProducts(List.of(new ProductRequest("hot-sku", 1.0, 100001)))
+                .get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public StockLevelResponse decrement() {
+        try {
+            return stockService.decreaseStock(productId, 1);
+        } catch (ConflictException soldOut) {
+            return stockService.increaseStock(productId, 100000);
+        }
+    }
+}
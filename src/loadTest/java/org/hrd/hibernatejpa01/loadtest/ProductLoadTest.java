@@ -0,0 +1,291 @@
+package org.hrd.hibernatejpa01.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.hrd.hibernatejpa01.HibernateJpa01Application;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.service.ProductService;
+import org.hrd.hibernatejpa01.util.CursorCodec;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load against every {@code ProductController} route with a read-heavy mix
+ * (80% get-by-id). The application is booted on an embedded PostgreSQL, or on the database given by
+ * {@code load.datasource.url}, and seeded with {@code load.products} rows.
+ * <p>
+ * After a warm-up, every response time is recorded in an HdrHistogram per route. The summary goes to
+ * {@code load.reportDir} as a fixed-layout table without timestamps so two builds can be diffed, next
+ * to one {@code .hgrm} percentile distribution per route.
+ */
+public final class ProductLoadTest {
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    private record Route(String name, int weight, Function<ThreadLocalRandom, HttpRequest.Builder> request) {
+    }
+
+    private static final class RouteStats {
+        final Histogram latencyMicros = new ConcurrentHistogram(3);
+        final LongAdder rejected = new LongAdder();   // 4xx: sold out, not found after a delete, ...
+        final LongAdder errors = new LongAdder();     // 5xx and transport failures
+    }
+
+    private final String baseUrl;
+    private final List<Long> seededIds;
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+    private final List<Route> routes = new ArrayList<>();
+    private int totalWeight;
+
+    private ProductLoadTest(String baseUrl, List<Long> seededIds) {
+        this.baseUrl = baseUrl;
+        this.seededIds = seededIds;
+        // weights per 1000 requests
+        route("get-by-id", 800, r -> get("/api/v1/products/" + seededId(r)));
+        route("search", 50, r -> get("/api/v1/products/search?limit=20&name=" + Integer.toHexString(r.nextInt(0x1000))));
+        route("page-offset", 25, r -> get("/api/v1/products?size=20&page=" + (1 + r.nextInt(50))));
+        route("page-keyset", 25, r -> get("/api/v1/products?size=20&after=" + CursorCodec.encode(seededId(r))));
+        route("typeahead", 20, r -> get("/api/v1/products/typeahead?limit=10&prefix=load-" + r.nextInt(100)));
+        route("stock-decrement", 20, r -> post("/api/v1/products/" + seededId(r) + "/stock/decrement?quantity=1", ""));
+        route("create", 10, r -> post("/api/v1/products", "[" + productJson(r) + "," + productJson(r) + "]"));
+        route("update", 10, r -> put("/api/v1/products/" + seededId(r), productJson(r)));
+        route("stock-increment", 10, r -> post("/api/v1/products/" + seededId(r) + "/stock/increment?quantity=1", ""));
+        route("checkout", 10, r -> post("/api/v1/products/stock/decrement",
+                "[{\"productId\":" + seededId(r) + ",\"quantity\":1},{\"productId\":" + seededId(r) + ",\"quantity\":1}]"));
+        route("low-stock", 10, r -> get("/api/v1/products/low-stock?quantity=10&size=100"));
+        route("delete", 3, r -> delete("/api/v1/products/" + createdIdOrMissing(), null));
+        route("bulk-update", 3, r -> put("/api/v1/products",
+                "[{\"id\":" + seededId(r) + ",\"price\":" + (1 + r.nextInt(500)) + "},{\"id\":" + seededId(r)
+                        + ",\"price\":" + (1 + r.nextInt(500)) + "}]"));
+        route("bulk-delete", 2, r -> delete("/api/v1/products",
+                "[" + createdIdOrMissing() + "," + createdIdOrMissing() + "]"));
+        route("import", 1, r -> HttpRequest.newBuilder(uri("/api/v1/products/import"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(productJson(r) + "\n" + productJson(r) + "\n")));
+        route("export", 1, r -> get("/api/v1/products/export?format=" + (r.nextBoolean() ? "ndjson" : "csv")));
+        // the low-stock SSE stream is long-lived and has no per-request latency, so it is not part of the mix
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("load.concurrency", 64);
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmupSeconds", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("load.durationSeconds", 60));
+        int products = Integer.getInteger("load.products", 10_000);
+        Path reportDir = Path.of(System.getProperty("load.reportDir", "build/reports/load-test"));
+        String configuredUrl = System.getProperty("load.datasource.url");
+
+        EmbeddedPostgres postgres = configuredUrl == null ? EmbeddedPostgres.start() : null;
+        String jdbcUrl = configuredUrl != null
+                ? configuredUrl
+                : postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true";
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(HibernateJpa01Application.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + jdbcUrl,
+                        "spring.jpa.show-sql=false")
+                .run()) {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            ProductLoadTest test = new ProductLoadTest("http://localhost:" + port, seed(app.getBean(ProductService.class), products));
+
+            test.run(concurrency, warmup, null);
+            List<RouteStats> stats = new ArrayList<>();
+            test.routes.forEach(route -> stats.add(new RouteStats()));
+            test.run(concurrency, duration, stats);
+            test.writeReport(reportDir, stats, concurrency, duration, products);
+        } finally {
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private void run(int concurrency, Duration duration, List<RouteStats> stats) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        for (int i = 0; i < concurrency; i++) {
+            clients.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int index = pick(random.nextInt(totalWeight));
+                    HttpRequest request = routes.get(index).request().apply(random)
+                            .timeout(Duration.ofSeconds(60))
+                            .build();
+                    long started = System.nanoTime();
+                    int status;
+                    try {
+                        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                        status = response.statusCode();
+                        if (routes.get(index).name().equals("create") && status == 201) {
+                            Matcher ids = ID.matcher(response.body());
+                            while (ids.find()) {
+                                createdIds.add(Long.parseLong(ids.group(1)));
+                            }
+                        }
+                    } catch (IOException e) {
+                        status = -1;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (stats != null) {
+                        RouteStats route = stats.get(index);
+                        route.latencyMicros.recordValue(Math.max(1, (System.nanoTime() - started) / 1_000));
+                        if (status < 0 || status >= 500) {
+                            route.errors.increment();
+                        } else if (status >= 400) {
+                            route.rejected.increment();
+                        }
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(duration.toSeconds() + 120, TimeUnit.SECONDS);
+    }
+
+    private void writeReport(Path reportDir, List<RouteStats> stats, int concurrency, Duration duration, int products)
+            throws IOException {
+        Files.createDirectories(reportDir);
+        double seconds = duration.toSeconds();
+        StringBuilder report = new StringBuilder()
+                .append("# product load test\n")
+                .append(String.format("concurrency %d, duration %d s, products %d%n%n", concurrency, duration.toSeconds(), products))
+                .append(String.format("%-16s %10s %9s %9s %7s %9s %9s %9s %9s%n",
+                        "route", "requests", "req/s", "rejected", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        Histogram total = new Histogram(3);
+        long rejected = 0;
+        long errors = 0;
+        for (int i = 0; i < routes.size(); i++) {
+            RouteStats route = stats.get(i);
+            Histogram latency = route.latencyMicros.copy();
+            total.add(latency);
+            rejected += route.rejected.sum();
+            errors += route.errors.sum();
+            report.append(row(routes.get(i).name(), latency, seconds, route.rejected.sum(), route.errors.sum()));
+            try (PrintStream out = new PrintStream(reportDir.resolve(routes.get(i).name() + ".hgrm").toFile())) {
+                latency.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        report.append(row("total", total, seconds, rejected, errors));
+        Files.writeString(reportDir.resolve("summary.txt"), report);
+        System.out.println();
+        System.out.print(report);
+    }
+
+    private static String row(String name, Histogram latency, double seconds, long rejected, long errors) {
+        return String.format("%-16s %10d %9.1f %9d %7d %9.2f %9.2f %9.2f %9.2f%n",
+                name,
+                latency.getTotalCount(),
+                latency.getTotalCount() / seconds,
+                rejected,
+                errors,
+                latency.getValueAtPercentile(50) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0,
+                latency.getValueAtPercentile(99.9) / 1000.0,
+                latency.getMaxValue() / 1000.0);
+    }
+
+    private void route(String name, int weight, Function<ThreadLocalRandom, HttpRequest.Builder> request) {
+        routes.add(new Route(name, weight, request));
+        totalWeight += weight;
+    }
+
+    private int pick(int ticket) {
+        for (int i = 0; i < routes.size(); i++) {
+            ticket -= routes.get(i).weight();
+            if (ticket < 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private Long seededId(ThreadLocalRandom random) {
+        return seededIds.get(random.nextInt(seededIds.size()));
+    }
+
+    // deletes only touch rows the run created itself, so reads of seeded rows never turn into 404s
+    private long createdIdOrMissing() {
+        Long id = createdIds.poll();
+        return id != null ? id : Long.MAX_VALUE;
+    }
+
+    private static String productJson(ThreadLocalRandom random) {
+        StringJoiner json = new StringJoiner(",", "{", "}");
+        json.add("\"name\":\"load-" + random.nextInt(100) + "-" + Integer.toHexString(random.nextInt()) + "\"");
+        json.add("\"price\":" + (1 + random.nextInt(500)));
+        json.add("\"quantity\":" + (1 + random.nextInt(500)));
+        return json.toString();
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private HttpRequest.Builder put(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private HttpRequest.Builder delete(String path, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path));
+        if (json == null) {
+            return builder.DELETE();
+        }
+        return builder.header("Content-Type", "application/json")
+                .method("DELETE", HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private static List<Long> seed(ProductService productService, int products) {
+        List<Long> ids = new ArrayList<>(products);
+        for (int from = 0; from < products; from += 1000) {
+            List<ProductRequest> requests = new ArrayList<>(1000);
+            for (int i = from; i < Math.min(from + 1000, products); i++) {
+                requests.add(new ProductRequest("load-" + (i % 100) + "-" + i, 1.0 + i % 500, 1 + i % 500));
+            }
+            productService.createProducts(requests).stream().map(Product::getId).forEach(ids::add);
+        }
+        return ids;
+    }
+}
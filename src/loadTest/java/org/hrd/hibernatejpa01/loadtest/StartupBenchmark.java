@@ -0,0 +1,142 @@
+package org.hrd.hibernatejpa01.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launches the extracted application jar ({@code ./gradlew cdsArchive}) in a fresh JVM per run and
+ * measures the time from process start to the first successful {@code GET /api/v1/products/{id}},
+ * with and without the class-data archive and, when the jar was built with {@code -Pstartup.aot},
+ * with the AOT-generated bean definitions.
+ */
+public final class StartupBenchmark {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String java = System.getProperty("startup.java", "java");
+        Path dir = Path.of(System.getProperty("startup.dir", "build/cds"));
+        int runs = Integer.getInteger("startup.runs", 5);
+        boolean aot = Boolean.getBoolean("startup.aot");
+
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        variants.put("baseline", List.of());
+        boolean archived = Files.exists(dir.resolve("application.jsa"));
+        if (aot) {
+            variants.put("aot", List.of("-Dspring.aot.enabled=true"));
+        }
+        if (archived) {
+            variants.put(aot ? "aot+cds" : "cds", aot
+                    ? List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=application.jsa")
+                    : List.of("-XX:SharedArchiveFile=application.jsa"));
+        }
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            String jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+            // an unmeasured boot applies the migrations and warms the page cache
+            time(java, dir, List.of(), jdbcUrl, null);
+            long productId = seed(jdbcUrl);
+
+            List<String> results = new ArrayList<>();
+            for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+                long[] millis = new long[runs];
+                for (int i = 0; i < runs; i++) {
+                    millis[i] = time(java, dir, variant.getValue(), jdbcUrl, productId);
+                }
+                Arrays.sort(millis);
+                results.add(String.format("%-10s %8d %8d %8d", variant.getKey(), millis[0], millis[runs / 2], millis[runs - 1]));
+            }
+            System.out.println();
+            System.out.printf("time to first GET /api/v1/products/{id}, %d runs%n", runs);
+            System.out.printf("%-10s %8s %8s %8s%n", "variant", "min ms", "p50 ms", "max ms");
+            results.forEach(System.out::println);
+        }
+    }
+
+    /**
+     * @param productId product to fetch, or null to only wait for the application to come up
+     */
+    private static long time(String java, Path dir, List<String> jvmArgs, String jdbcUrl, Long productId) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-jar", "app.jar",
+                "--server.port=" + port,
+                "--spring.datasource.url=" + jdbcUrl + "&reWriteBatchedInserts=true",
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres"));
+        String path = productId == null ? "/actuator/health" : "/api/v1/products/" + productId;
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(dir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File(dir.toFile(), "startup-benchmark.log")))
+                .start();
+        try {
+            long deadline = started + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue()
+                            + ", see " + dir.resolve("startup-benchmark.log"));
+                }
+                try {
+                    if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("Application did not answer " + path + " within " + STARTUP_TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static long seed(String jdbcUrl) throws Exception {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl);
+             ResultSet rs = connection.createStatement().executeQuery(
+                     "insert into products (id, name, price, quantity) values (nextval('products_seq'), 'startup', 1.0, 1) returning id")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.hrd.hibernatejpa01.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.hrd.hibernatejpa01.HibernateJpa01Application;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.service.ProductService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Boots the application twice against one embedded PostgreSQL, once on platform threads and once
+ * with {@code spring.threads.virtual.enabled=true}, and drives each with the same number of
+ * concurrent keep-alive connections issuing get-by-id and search requests.
+ */
+public final class VirtualThreadLoadTest {
+
+    private static final int PRODUCTS = 1_000;
+
+    private VirtualThreadLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("load.concurrency", 5000);
+        Duration duration = Duration.ofSeconds(Long.getLong("load.durationSeconds", 30));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            String jdbcUrl = postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true";
+            List<String> results = new ArrayList<>();
+            for (boolean virtual : new boolean[]{false, true}) {
+                results.add(run(jdbcUrl, virtual, concurrency, duration));
+            }
+            System.out.println();
+            System.out.printf("%-10s %12s %10s %10s %12s%n", "threads", "requests", "errors", "req/s", "mean ms");
+            results.forEach(System.out::println);
+        }
+    }
+
+    private static String run(String jdbcUrl, boolean virtual, int concurrency, Duration duration) throws Exception {
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(HibernateJpa01Application.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "spring.datasource.url=" + jdbcUrl,
+                        "spring.jpa.show-sql=false")
+                .run()) {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            List<Long> ids = seed(app.getBean(ProductService.class));
+
+            LongAdder requests = new LongAdder();
+            LongAdder errors = new LongAdder();
+            LongAdder nanos = new LongAdder();
+            long deadline = System.nanoTime() + duration.toNanos();
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient http = HttpClient.newBuilder()
+                        .executor(clients)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+                for (int i = 0; i < concurrency; i++) {
+                    clients.submit(() -> {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        while (System.nanoTime() < deadline) {
+                            String path = random.nextInt(10) < 8
+                                    ? "/api/v1/products/" + ids.get(random.nextInt(ids.size()))
+                                    : "/api/v1/products/search?limit=10&name=load-" + random.nextInt(100);
+                            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                                    .timeout(Duration.ofSeconds(30))
+                                    .build();
+                            long started = System.nanoTime();
+                            try {
+                                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                                if (response.statusCode() != 200) {
+                                    errors.increment();
+                                }
+                            } catch (Exception e) {
+                                errors.increment();
+                            }
+                            nanos.add(System.nanoTime() - started);
+                            requests.increment();
+                        }
+                        return null;
+                    });
+                }
+                clients.shutdown();
+                clients.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+            }
+
+            long total = requests.sum();
+            return String.format("%-10s %12d %10d %10.0f %12.2f",
+                    virtual ? "virtual" : "platform",
+                    total,
+                    errors.sum(),
+                    total / (double) duration.toSeconds(),
+                    total == 0 ? 0 : nanos.sum() / (total * 1_000_000.0));
+        }
+    }
+
+    private static List<Long> seed(ProductService productService) {
+        List<ProductRequest> requests = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            requests.add(new ProductRequest("load-" + i, 1.0 + i, 1 + i % 500));
+        }
+        return productService.createProducts(requests).stream().map(Product::getId).toList();
+    }
+}
@@ -2,8 +2,10 @@ package org.hrd.hibernatejpa01;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class HibernateJpa01Application {
 
     public static void main(String[] args) {
@@ -0,0 +1,257 @@
+package org.hrd.hibernatejpa01.alert;
+
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.event.ProductUpdatedEvent;
+import org.hrd.hibernatejpa01.event.ProductsCreatedEvent;
+import org.hrd.hibernatejpa01.model.dto.response.LowStockAlert;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.model.enums.LowStockAlertType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes low-stock threshold crossings to Server-Sent Events subscribers.
+ * <p>
+ * Alerts are numbered and kept in a fixed-size ring buffer so a reconnecting client can replay
+ * everything after its {@code Last-Event-ID}. Writers only append to the ring and offer to each
+ * subscriber's bounded queue; sending happens on a small pool of its own, so blocked SSE writes
+ * never hold threads of the application task executor. A subscriber whose queue overflows, or
+ * whose send has been blocked longer than {@code product.low-stock.send-timeout}, is disconnected
+ * and catches up from the ring when it reconnects, so a slow client never blocks a product update.
+ */
+@Component
+public class LowStockAlertPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockAlertPublisher.class);
+
+    private final ProductProperties.LowStock settings;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService sendWatchdog;
+    private final long sendTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LowStockAlert[] ring;
+    private long nextSequence = 1;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public LowStockAlertPublisher(ProductProperties productProperties) {
+        this.settings = productProperties.getLowStock();
+        this.ring = new LowStockAlert[settings.getAlertBufferSize()];
+        this.sendTimeoutNanos = settings.getSendTimeout().toNanos();
+        // at most one queued drain per subscriber, so the task queue is bounded by the subscriber count
+        this.senders = Executors.newFixedThreadPool(settings.getSenderThreads(), threads("low-stock-sse-"));
+        this.sendWatchdog = Executors.newSingleThreadScheduledExecutor(threads("low-stock-sse-watchdog-"));
+        long period = Math.max(1, settings.getSendTimeout().toMillis() / 2);
+        sendWatchdog.scheduleAtFixedRate(this::disconnectStalledSubscribers, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void stop() {
+        sendWatchdog.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    // a send blocked on a full socket keeps its thread until the container's write timeout fails it;
+    // the subscriber is dropped now so it gets no further sends and no further threads
+    private void disconnectStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStartedAt;
+            if (started != 0 && now - started > sendTimeoutNanos) {
+                logger.info("Disconnecting low-stock alert subscriber blocked in a send for over {} ms",
+                        settings.getSendTimeout().toMillis());
+                subscriber.abandon();
+            }
+        }
+    }
+
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(settings.getAlertTimeout().toMillis());
+        Subscriber subscriber;
+
+        lock.lock();
+        try {
+            long oldest = Math.max(1, nextSequence - ring.length);
+            long from = lastEventId == null ? nextSequence : lastEventId + 1;
+            // older than the ring, or an id from before a restart reset the sequence
+            boolean gap = from < oldest || from > nextSequence;
+            long replayFrom = Math.max(from, oldest);
+
+            int replayCount = (int) Math.max(0, nextSequence - replayFrom);
+            subscriber = new Subscriber(emitter, settings.getSubscriberQueueSize() + replayCount, gap);
+            // queued before registering, so replayed and live alerts stay in sequence order
+            for (long sequence = replayFrom; sequence < nextSequence; sequence++) {
+                subscriber.queue.offer(ring[(int) (sequence % ring.length)]);
+            }
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscriber.scheduleDrain();
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsCreated(ProductsCreatedEvent event) {
+        for (Product product : event.products()) {
+            if (product.getQuantity() < settings.getAlertThreshold()) {
+                publish(LowStockAlertType.LOW, product);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductUpdated(ProductUpdatedEvent event) {
+        int threshold = settings.getAlertThreshold();
+        boolean wasLow = event.previousQuantity() < threshold;
+        boolean isLow = event.product().getQuantity() < threshold;
+        if (!wasLow && isLow) {
+            publish(LowStockAlertType.LOW, event.product());
+        } else if (wasLow && !isLow) {
+            publish(LowStockAlertType.RESTOCKED, event.product());
+        }
+    }
+
+    private void publish(LowStockAlertType type, Product product) {
+        lock.lock();
+        try {
+            long sequence = nextSequence++;
+            LowStockAlert alert = new LowStockAlert(sequence, type, product.getId(), product.getName(),
+                    product.getQuantity(), settings.getAlertThreshold());
+            ring[(int) (sequence % ring.length)] = alert;
+            // offers never block, so fanning out under the lock only keeps every queue in sequence order
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(alert);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<LowStockAlert> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean resetPending;
+        private volatile boolean closed;
+        // System.nanoTime() when the send in progress began, 0 when none is
+        private volatile long sendStartedAt;
+        private volatile boolean abandoned;
+
+        private Subscriber(SseEmitter emitter, int capacity, boolean resetPending) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.resetPending = resetPending;
+        }
+
+        private void offer(LowStockAlert alert) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(alert)) {
+                logger.info("Disconnecting slow low-stock alert subscriber after {} queued alerts", queue.size());
+                // called under the publish lock: never wait here for a send that is stuck on the socket
+                if (sendStartedAt != 0) {
+                    abandon();
+                } else {
+                    close();
+                }
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    if (resetPending) {
+                        // the requested Last-Event-ID has left the ring: the client must reload /low-stock
+                        send(SseEmitter.event().name("reset").data("resync"));
+                        resetPending = false;
+                    }
+                    LowStockAlert alert;
+                    while (!closed && (alert = queue.poll()) != null) {
+                        send(SseEmitter.event()
+                                .id(String.valueOf(alert.getSequence()))
+                                .name("low-stock")
+                                .data(alert, MediaType.APPLICATION_JSON));
+                    }
+                    draining.set(false);
+                    // an alert offered after the last poll but before the flag was cleared still needs a drain
+                } while (!closed && !queue.isEmpty() && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                draining.set(false);
+                close();
+            }
+            if (abandoned) {
+                // the stalled send has returned or failed; now the emitter can be completed without waiting
+                emitter.complete();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendStartedAt = System.nanoTime();
+            try {
+                emitter.send(event);
+            } finally {
+                sendStartedAt = 0;
+            }
+        }
+
+        // from the watchdog while a send is blocked: completing the emitter would wait for that send
+        private void abandon() {
+            abandoned = true;
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+
+        private void close() {
+            if (!closed) {
+                closed = true;
+                subscribers.remove(this);
+                queue.clear();
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.hrd.hibernatejpa01.config;
+
+import org.hrd.hibernatejpa01.search.ProductNameIndex;
+import org.hrd.hibernatejpa01.stock.StockWriteBehindBuffer;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * With {@code spring.aot.enabled} the bean definitions come from the build, so the conditions below
+ * were decided by the properties the jar was built with and changing them at runtime does nothing.
+ * Startup fails when a runtime property asks for different beans than the build produced, instead
+ * of the application quietly running without replicas, the stock buffer, virtual threads or the
+ * typeahead index (or with them).
+ */
+@Component
+public class AotConditionGuard implements SmartInitializingSingleton {
+
+    private final Environment environment;
+    private final ListableBeanFactory beanFactory;
+
+    public AotConditionGuard(Environment environment, ListableBeanFactory beanFactory) {
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        List<String> mismatches = new ArrayList<>();
+        check(mismatches, "product.read-replicas.urls (READ_REPLICA_URLS)",
+                !environment.getProperty("product.read-replicas.urls", "").isEmpty(), ReplicaRoutingDataSource.class);
+        check(mismatches, "product.stock.write-behind.enabled (STOCK_WRITE_BEHIND_ENABLED)",
+                environment.getProperty("product.stock.write-behind.enabled", Boolean.class, false),
+                StockWriteBehindBuffer.class);
+        check(mismatches, "spring.threads.virtual.enabled (VIRTUAL_THREADS_ENABLED)",
+                environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false),
+                VirtualThreadPinningMonitor.class);
+        check(mismatches, "product.search.typeahead-source",
+                "index".equals(environment.getProperty("product.search.typeahead-source")), ProductNameIndex.class);
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("The AOT-processed build does not match the runtime configuration: "
+                    + String.join("; ", mismatches) + ". Rebuild with the same settings, or run with "
+                    + "-Dspring.aot.enabled=false (STARTUP_AOT=false for the image)");
+        }
+    }
+
+    private void check(List<String> mismatches, String property, boolean wanted, Class<?> beanType) {
+        boolean built = beanFactory.getBeanNamesForType(beanType, false, false).length > 0;
+        if (wanted != built) {
+            mismatches.add(property + " asks " + (wanted ? "for " : "to leave out ") + beanType.getSimpleName()
+                    + " but the build " + (built ? "included" : "left out") + " it");
+        }
+    }
+}
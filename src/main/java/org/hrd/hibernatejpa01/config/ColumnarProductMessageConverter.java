@@ -0,0 +1,184 @@
+package org.hrd.hibernatejpa01.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.hrd.hibernatejpa01.model.dto.response.ApiResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductPageResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductResponse;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes product lists and pages as CBOR with one array per column instead of one object per
+ * product, so field names appear once per response rather than once per row:
+ * <pre>
+ * {status, message, instant,
+ *  columns: {id: [...], name: [...], price: [...], quantity: [...], version: [...]},
+ *  pagination}
+ * </pre>
+ * Negotiated with {@code Accept: application/vnd.products.columnar+cbor} on endpoints whose payload
+ * is a {@link ProductPageResponse} or a list of {@link ProductResponse}; write-only.
+ */
+public class ColumnarProductMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType COLUMNAR_CBOR = MediaType.parseMediaType("application/vnd.products.columnar+cbor");
+
+    // CBOR mapper from the application's Jackson builder; used for the generator and the nested values
+    private final ObjectMapper cborMapper;
+
+    public ColumnarProductMessageConverter(ObjectMapper cborMapper) {
+        super(COLUMNAR_CBOR);
+        Assert.isInstanceOf(CBORFactory.class, cborMapper.getFactory(), "A CBOR ObjectMapper is required");
+        this.cborMapper = cborMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ApiResponse.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(clazz, mediaType) && hasProductPayload(type != null ? type : clazz);
+    }
+
+    private static boolean hasProductPayload(Type type) {
+        ResolvableType payload = ResolvableType.forType(type).as(ApiResponse.class).getGeneric(0);
+        Class<?> payloadClass = payload.resolve();
+        if (payloadClass == ProductPageResponse.class) {
+            return true;
+        }
+        return payloadClass != null && List.class.isAssignableFrom(payloadClass)
+                && payload.getGeneric(0).resolve() == ProductResponse.class;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Columnar product responses are write-only", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Columnar product responses are write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        write((ApiResponse<?>) body, outputMessage.getBody());
+    }
+
+    /**
+     * Streams the response to {@code out} as it is generated; {@code out} is left open.
+     */
+    public void write(ApiResponse<?> response, OutputStream out) throws IOException {
+        Object payload = response.getPayload();
+        List<?> products;
+        ProductPageResponse page = null;
+        if (payload instanceof ProductPageResponse productPage) {
+            page = productPage;
+            products = productPage.getProducts();
+        } else {
+            products = (List<?>) payload;
+        }
+
+        try (JsonGenerator generator = cborMapper.createGenerator(StreamUtils.nonClosing(out))) {
+            generator.writeStartObject();
+            generator.writeNumberField("status", response.getStatus());
+            if (response.getMessage() != null) {
+                generator.writeStringField("message", response.getMessage());
+            }
+            generator.writeFieldName("instant");
+            cborMapper.writeValue(generator, response.getInstant());
+            if (products != null) {
+                writeColumns(generator, products);
+            }
+            if (page != null && page.getPagination() != null) {
+                generator.writeFieldName("pagination");
+                cborMapper.writeValue(generator, page.getPagination());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeColumns(JsonGenerator generator, List<?> rows) throws IOException {
+        int size = rows.size();
+        generator.writeObjectFieldStart("columns");
+
+        generator.writeFieldName("id");
+        generator.writeStartArray(rows, size);
+        for (Object row : rows) {
+            writeNumber(generator, ((ProductResponse) row).getId());
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName("name");
+        generator.writeStartArray(rows, size);
+        for (Object row : rows) {
+            generator.writeString(((ProductResponse) row).getName());
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName("price");
+        generator.writeStartArray(rows, size);
+        for (Object row : rows) {
+            Double price = ((ProductResponse) row).getPrice();
+            if (price == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(price);
+            }
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName("quantity");
+        generator.writeStartArray(rows, size);
+        for (Object row : rows) {
+            Integer quantity = ((ProductResponse) row).getQuantity();
+            if (quantity == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(quantity);
+            }
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName("version");
+        generator.writeStartArray(rows, size);
+        for (Object row : rows) {
+            writeNumber(generator, ((ProductResponse) row).getVersion());
+        }
+        generator.writeEndArray();
+
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+}
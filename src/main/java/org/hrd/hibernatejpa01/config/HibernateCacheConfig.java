@@ -0,0 +1,58 @@
+package org.hrd.hibernatejpa01.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache backed by Caffeine through JCache. The regions are created here,
+ * sized and expired from {@code product.cache.*}, and handed to Hibernate as an explicit cache manager.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String PRODUCT_REGION = "product";
+
+    // one manager per application context, under its own URI: the provider's default manager is shared
+    // by every context in the JVM (test contexts included), which would hand one context's regions,
+    // entries and settings to the next. Closed with the context; closing it again is a no-op
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(ProductProperties productProperties, ApplicationContext context) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        URI uri = URI.create("hibernate-cache:" + UUID.randomUUID());
+        CacheManager cacheManager = provider.getCacheManager(uri, context.getClassLoader());
+
+        ProductProperties.Cache cache = productProperties.getCache();
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(cache.getMaximumSize()));
+        configuration.setExpireAfterWrite(OptionalLong.of(cache.getTimeToLive().toNanos()));
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(PRODUCT_REGION, configuration);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    // cache.gets{result=hit|miss}, cache.puts, cache.evictions, cache.removals tagged cache=product
+    @Bean
+    public MeterBinder productCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(PRODUCT_REGION));
+    }
+}
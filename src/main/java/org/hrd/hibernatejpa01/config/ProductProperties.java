@@ -0,0 +1,209 @@
+package org.hrd.hibernatejpa01.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "product")
+public class ProductProperties {
+
+    private final Bulk bulk = new Bulk();
+    private final Pagination pagination = new Pagination();
+    private final Search search = new Search();
+    private final Cache cache = new Cache();
+    private final LowStock lowStock = new LowStock();
+    private final Threads threads = new Threads();
+    private final Stock stock = new Stock();
+    private final SqlLog sqlLog = new SqlLog();
+    private final ImportJobs importJobs = new ImportJobs();
+    private final ReadReplicas readReplicas = new ReadReplicas();
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    @Data
+    public static class Bulk {
+        // number of rows persisted before the persistence context is flushed and cleared,
+        // kept in line with hibernate.jdbc.batch_size so every flush sends one full JDBC batch
+        private int batchSize = 50;
+
+        // rows per transaction for the streaming import endpoint
+        private int importChunkSize = 1000;
+
+        // rejected rows listed in a streaming import report; the rest are only counted
+        private int importRejectedRows = 100;
+
+        // rows sent as arrays in one set-based UPDATE or DELETE by the bulk endpoints
+        private int statementRows = 5000;
+    }
+
+    @Data
+    public static class Pagination {
+        // how totalElements is produced for offset pages
+        private CountStrategy countStrategy = CountStrategy.CACHED;
+
+        // how long a cached count is served before it is recomputed
+        private Duration countCacheTtl = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Search {
+        // results returned when the client does not pass a limit
+        private int defaultLimit = 20;
+
+        // upper bound on any search or typeahead result list
+        private int maxLimit = 100;
+
+        // where typeahead suggestions come from
+        private TypeaheadSource typeaheadSource = TypeaheadSource.DATABASE;
+
+        // leading characters of each name kept in the in-memory index (1 to 4)
+        private int indexMaxGram = 4;
+    }
+
+    public enum TypeaheadSource {
+        DATABASE,   // prefix query on the products table
+        INDEX       // in-process ProductNameIndex, no SQL per request
+    }
+
+    @Data
+    public static class Cache {
+        // entries kept in the product second-level cache region before size-based eviction
+        private long maximumSize = 100_000;
+
+        // expire-after-write for cached products
+        private Duration timeToLive = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class LowStock {
+        // page size when the client does not pass one
+        private int defaultSize = 100;
+
+        // upper bound on a low-stock page
+        private int maxSize = 1000;
+
+        // a product is low on stock below this quantity; crossings are pushed to alert subscribers
+        private int alertThreshold = 10;
+
+        // recent alerts kept for Last-Event-ID replay
+        private int alertBufferSize = 1024;
+
+        // alerts queued per subscriber before it is disconnected as too slow
+        private int subscriberQueueSize = 256;
+
+        // lifetime of one alert stream connection before the client has to reconnect
+        private Duration alertTimeout = Duration.ofMinutes(30);
+
+        // threads writing alert streams, separate from the application task executor
+        private int senderThreads = 4;
+
+        // a subscriber whose write has been blocked this long is disconnected
+        private Duration sendTimeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Threads {
+        // with virtual threads enabled, pinned blocking longer than this is reported
+        private Duration pinnedThreshold = Duration.ofMillis(20);
+    }
+
+    @Data
+    public static class Stock {
+        private final WriteBehind writeBehind = new WriteBehind();
+    }
+
+    @Data
+    public static class WriteBehind {
+        // stock adjustments are acknowledged from memory and written to the database in coalesced batches
+        private boolean enabled = false;
+
+        // delay between two flushes; also the longest a buffered change stays out of the database
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        // directory holding the two memory-mapped journal segments; required when enabled, and it must
+        // survive restarts (a mounted volume, not tmp): unflushed adjustments are replayed from it
+        private String journalDir;
+
+        // adjustments one journal segment holds between flushes; a full segment is flushed before the request goes on
+        private int journalCapacity = 1 << 20;
+
+        // how often the journal is forced to disk; 0 leaves it to the OS, so an OS or host crash loses
+        // what was acknowledged but not flushed yet (up to flush-interval while the database is reachable)
+        private Duration journalSyncInterval = Duration.ZERO;
+    }
+
+    @Data
+    public static class SqlLog {
+        // fraction of prepared statements written to the SQL log (0 = off, 1 = every statement)
+        private double sampleRate = 0;
+
+        // sampled statements waiting for the log thread; beyond it they are dropped
+        private int queueSize = 10_000;
+    }
+
+    @Data
+    public static class ImportJobs {
+        // uploads are copied here before the job is accepted and removed once it finishes; jobs are
+        // resumed from it after a restart, so it must be durable (not tmp). Unset, jobs are refused
+        private String spoolDir;
+
+        // jobs reading their input at the same time
+        private int maxConcurrentJobs = 2;
+
+        // accepted jobs waiting for a job thread; beyond it submissions are refused
+        private int queueCapacity = 16;
+
+        // threads committing chunks, shared by all jobs; each job keeps at most this many chunks in flight
+        private int writers = 4;
+
+        // an instance renews the lease on its jobs every third of this; a job whose lease is older is
+        // resumed by whichever instance claims it first
+        private Duration leaseTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class ReadReplicas {
+        // JDBC URLs of PostgreSQL streaming replicas; empty keeps every transaction on spring.datasource
+        private List<String> urls = new ArrayList<>();
+
+        // replica credentials, spring.datasource's when not set
+        private String username;
+        private String password;
+
+        // how read-only transactions are spread over the healthy replicas
+        private ReplicaBalancing balancing = ReplicaBalancing.ROUND_ROBIN;
+
+        // a replica further behind the primary than this gets no reads until it catches up
+        private Duration maxLag = Duration.ofSeconds(5);
+
+        // how often each replica's replay lag is measured
+        private Duration lagCheckInterval = Duration.ofSeconds(2);
+
+        // connections per replica pool; the other pool settings are spring.datasource.hikari's
+        private int maximumPoolSize = 20;
+    }
+
+    public enum ReplicaBalancing {
+        ROUND_ROBIN,        // replicas take turns
+        LEAST_CONNECTIONS   // the replica pool with the fewest borrowed connections
+    }
+
+    @Data
+    public static class SingleFlight {
+        // concurrent identical get-by-id and search calls share one database query
+        private boolean enabled = true;
+
+        // longest a caller waits for the shared query before running its own
+        private Duration maxWait = Duration.ofSeconds(2);
+    }
+
+    public enum CountStrategy {
+        EXACT,      // select count(p) on every request
+        CACHED,     // exact count cached for countCacheTtl, dropped on create/delete
+        ESTIMATED,  // planner estimate from pg_class.reltuples
+        NONE        // no total, clients rely on hasNext
+    }
+}
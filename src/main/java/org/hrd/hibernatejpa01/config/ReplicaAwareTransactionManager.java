@@ -0,0 +1,27 @@
+package org.hrd.hibernatejpa01.config;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps replica reads out of the second-level cache. A read-only transaction may be served by a
+ * replica that has not replayed the latest commit yet; an entity it loads right after an eviction
+ * would otherwise be put back into the cache in its old state and served from there until the TTL.
+ * Such sessions still read the cache ({@link CacheMode#GET}) but only primary reads populate it.
+ */
+public class ReplicaAwareTransactionManager extends JpaTransactionManager {
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(
+                obtainEntityManagerFactory());
+        // set on every transaction: with open-in-view the same session also runs the later read-write ones
+        holder.getEntityManager().unwrap(Session.class)
+                .setCacheMode(definition.isReadOnly() ? CacheMode.GET : CacheMode.NORMAL);
+    }
+}
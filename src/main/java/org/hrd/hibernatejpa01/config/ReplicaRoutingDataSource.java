@@ -0,0 +1,195 @@
+package org.hrd.hibernatejpa01.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica pool and everything else to the primary. The key is
+ * looked up when a connection is actually borrowed, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: by then Spring has
+ * marked the transaction read-only.
+ * <p>
+ * Each replica's replay lag is measured in the background; a replica that is behind by more than
+ * {@code product.read-replicas.max-lag}, is not streaming from the primary, or cannot be reached, is
+ * skipped, and with no replica left
+ * reads fall back to the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY = "primary";
+
+    // zero on a server that is not a standby, and on a streaming standby that has replayed all WAL it
+    // received (replay timestamps stand still while the primary is idle). NULL when the lag is unknown:
+    // a standby whose WAL receiver is not streaming has replayed everything it got, and still falls
+    // behind while disconnected
+    private static final String LAG_QUERY = """
+            select case
+                when not pg_is_in_recovery() then 0
+                when not exists (select 1 from pg_stat_wal_receiver where status = 'streaming') then null
+                when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                else extract(epoch from now() - pg_last_xact_replay_timestamp())
+            end""";
+
+    private static final class Replica {
+        final String name;
+        final HikariDataSource dataSource;
+        volatile double lagSeconds = Double.NaN;
+        // unknown until the first lag check, so reads start on the primary
+        volatile boolean healthy;
+
+        Replica(HikariDataSource dataSource) {
+            this.name = dataSource.getPoolName();
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final List<Replica> replicas;
+    private final ProductProperties.ReplicaBalancing balancing;
+    private final double maxLagSeconds;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter replicaReads;
+    private final Counter fallbackReads;
+    private final ScheduledExecutorService lagChecker;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools,
+                                    ProductProperties.ReadReplicas settings, MeterRegistry meterRegistry) {
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.balancing = settings.getBalancing();
+        this.maxLagSeconds = settings.getMaxLag().toMillis() / 1000.0;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Replica replica : replicas) {
+            targets.put(replica.name, replica.dataSource);
+            Gauge.builder("product.datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Replay lag of a read replica in seconds, NaN while unreachable or not streaming")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.replicaReads = Counter.builder("product.datasource.reads")
+                .description("Read-only transactions by the pool that served them")
+                .tag("target", "replica")
+                .register(meterRegistry);
+        this.fallbackReads = Counter.builder("product.datasource.reads")
+                .description("Read-only transactions by the pool that served them")
+                .tag("target", "primary")
+                .register(meterRegistry);
+
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getLagCheckInterval().toMillis();
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        Replica replica = balancing == ProductProperties.ReplicaBalancing.LEAST_CONNECTIONS
+                ? leastConnections()
+                : roundRobin();
+        if (replica == null) {
+            fallbackReads.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return replica.name;
+    }
+
+    private Replica roundRobin() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private Replica leastConnections() {
+        Replica best = null;
+        int fewest = Integer.MAX_VALUE;
+        for (Replica replica : replicas) {
+            if (!replica.healthy) {
+                continue;
+            }
+            HikariPoolMXBean pool = replica.dataSource.getHikariPoolMXBean();
+            int active = pool == null ? 0 : pool.getActiveConnections();
+            if (active < fewest) {
+                best = replica;
+                fewest = active;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Measures every replica's lag and updates which ones take reads. Runs on the lag-check thread;
+     * public so tests can trigger it instead of waiting for the next interval.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                double lag = rs.getDouble(1);
+                boolean known = !rs.wasNull();
+                connection.rollback();
+                replica.lagSeconds = known ? lag : Double.NaN;
+                replica.healthy = known && lag <= maxLagSeconds;
+                if (wasHealthy && !known) {
+                    logger.warn("Replica {} is not streaming from the primary, its reads go to the primary", replica.name);
+                } else if (wasHealthy && !replica.healthy) {
+                    logger.warn("Replica {} is {}s behind the primary, its reads go to the primary", replica.name, replica.lagSeconds);
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.lagSeconds = Double.NaN;
+                replica.healthy = false;
+                if (wasHealthy) {
+                    logger.warn("Replica {} is unreachable, its reads go to the primary: {}", replica.name, e.getMessage());
+                }
+            }
+            if (!wasHealthy && replica.healthy) {
+                logger.info("Replica {} takes reads, {}s behind the primary", replica.name, replica.lagSeconds);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        lagChecker.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+}
@@ -0,0 +1,43 @@
+package org.hrd.hibernatejpa01.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary response formats, chosen by the Accept header: CBOR ({@code application/cbor}), Smile
+ * ({@code application/x-jackson-smile}) and the columnar CBOR layout for product lists. They are
+ * appended after the JSON converter, so clients sending {@code Accept: *}{@code /*} still get JSON.
+ */
+@Configuration
+public class ResponseFormatConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+
+    // the builder is a prototype bean carrying the spring.jackson.* settings
+    public ResponseFormatConfig(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        this.cborMapper = builders.getObject().factory(new CBORFactory()).build();
+        this.smileMapper = builders.getObject().factory(new SmileFactory()).build();
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Spring MVC registers defaults for both when the dataformats are present; replace them so
+        // they share the application's Jackson configuration
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new ColumnarProductMessageConverter(cborMapper));
+        converters.add(new MappingJackson2CborHttpMessageConverter(cborMapper));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(smileMapper));
+    }
+}
@@ -0,0 +1,76 @@
+package org.hrd.hibernatejpa01.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Replacement for {@code show-sql}: logs a random sample of the statements Hibernate prepares,
+ * from a background thread. The calling thread only offers the SQL text to a bounded queue; when
+ * the logger falls behind, statements are dropped and counted in {@code sql.log.dropped}.
+ * Timing comes from Hibernate's slow-query log, not from here.
+ */
+@Component
+public class SampledSqlLogger implements StatementInspector {
+
+    private static final Logger logger = LoggerFactory.getLogger("org.hrd.hibernatejpa01.sql");
+
+    private final double sampleRate;
+    private final BlockingQueue<String> queue;
+    private final Counter dropped;
+    private Thread writer;
+
+    public SampledSqlLogger(ProductProperties productProperties, MeterRegistry meterRegistry) {
+        ProductProperties.SqlLog sqlLog = productProperties.getSqlLog();
+        this.sampleRate = sqlLog.getSampleRate();
+        this.queue = new ArrayBlockingQueue<>(sqlLog.getQueueSize());
+        this.dropped = Counter.builder("sql.log.dropped")
+                .description("Sampled SQL statements not logged because the log queue was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (sampleRate <= 0) {
+            return;
+        }
+        writer = new Thread(this::drain, "sql-sample-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer != null) {
+            writer.interrupt();
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate)
+                && !queue.offer(sql)) {
+            dropped.increment();
+        }
+        return sql;
+    }
+
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                logger.info(queue.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
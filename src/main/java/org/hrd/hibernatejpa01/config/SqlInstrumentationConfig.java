@@ -0,0 +1,35 @@
+package org.hrd.hibernatejpa01.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Hands every {@link StatementInspector} bean to Hibernate, chained in bean order. Hibernate accepts a
+ * single inspector, so the SQL sample log and any inspector a test registers share this hook.
+ */
+@Configuration
+public class SqlInstrumentationConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(ObjectProvider<StatementInspector> inspectors) {
+        return properties -> {
+            List<StatementInspector> chain = inspectors.orderedStream().toList();
+            if (chain.isEmpty()) {
+                return;
+            }
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                String inspected = sql;
+                for (StatementInspector inspector : chain) {
+                    inspected = inspector.inspect(inspected);
+                }
+                return inspected;
+            });
+        };
+    }
+}
@@ -2,16 +2,41 @@ package org.hrd.hibernatejpa01.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
+import org.hrd.hibernatejpa01.alert.LowStockAlertPublisher;
+import org.hrd.hibernatejpa01.exception.BadRequestException;
+import org.hrd.hibernatejpa01.model.dto.request.ProductPatchRequest;
 import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.dto.request.StockAdjustmentRequest;
 import org.hrd.hibernatejpa01.model.dto.response.ApiResponse;
+import org.hrd.hibernatejpa01.model.dto.response.BulkProductReport;
+import org.hrd.hibernatejpa01.model.dto.response.ImportJobResponse;
+import org.hrd.hibernatejpa01.model.dto.response.LowStockPageResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductImportReport;
 import org.hrd.hibernatejpa01.model.dto.response.ProductPageResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductSuggestion;
+import org.hrd.hibernatejpa01.model.dto.response.StockLevelResponse;
 import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.model.enums.ImportFormat;
+import org.hrd.hibernatejpa01.service.ImportJobService;
+import org.hrd.hibernatejpa01.service.ProductExportService;
+import org.hrd.hibernatejpa01.service.ProductImportService;
 import org.hrd.hibernatejpa01.service.ProductService;
+import org.hrd.hibernatejpa01.service.StockService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/products")
@@ -19,6 +44,11 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final ImportJobService importJobService;
+    private final LowStockAlertPublisher lowStockAlertPublisher;
+    private final StockService stockService;
 
     @PostMapping
     @Operation(summary = "Add multiple products")
@@ -31,12 +61,173 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    @Operation(summary = "Stream-import products from NDJSON or CSV")
+    public ResponseEntity<ApiResponse<ProductImportReport>> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        ProductImportReport report = productImportService.importProducts(body, ImportFormat.fromContentType(contentType));
+        ApiResponse<ProductImportReport> response = ApiResponse.<ProductImportReport>builder()
+                .message("Imported " + report.getAccepted() + " of " + report.getTotalRows() + " products")
+                .payload(report)
+                .status(HttpStatus.OK.value())
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping(value = "/import/jobs", consumes = {"application/x-ndjson", "text/csv"})
+    @Operation(summary = "Queue a background import of NDJSON or CSV products and return its job")
+    public ResponseEntity<ApiResponse<ImportJobResponse>> submitImportJob(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        ImportJobResponse job = importJobService.submitJob(body, ImportFormat.fromContentType(contentType));
+        ApiResponse<ImportJobResponse> response = ApiResponse.<ImportJobResponse>builder()
+                .message("Import job accepted")
+                .payload(job)
+                .status(HttpStatus.ACCEPTED.value())
+                .build();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/products/import/jobs/" + job.getId()))
+                .body(response);
+    }
+
+    @GetMapping("/import/jobs/{jobId}")
+    @Operation(summary = "Get the status and progress of an import job")
+    public ResponseEntity<ApiResponse<ImportJobResponse>> getImportJob(@PathVariable UUID jobId) {
+        ApiResponse<ImportJobResponse> response = ApiResponse.<ImportJobResponse>builder()
+                .message("Import job fetched successfully")
+                .payload(importJobService.getJob(jobId))
+                .status(HttpStatus.OK.value())
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/import/jobs/{jobId}")
+    @Operation(summary = "Cancel an import job; chunks already committed are kept")
+    public ResponseEntity<ApiResponse<ImportJobResponse>> cancelImportJob(@PathVariable UUID jobId) {
+        ApiResponse<ImportJobResponse> response = ApiResponse.<ImportJobResponse>builder()
+                .message("Import job cancelled")
+                .payload(importJobService.cancelJob(jobId))
+                .status(HttpStatus.OK.value())
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Stream the whole catalog as NDJSON or CSV (gzip-compressed when the client accepts it)")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ImportFormat exportFormat = ImportFormat.fromName(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        // runs on an async thread after headers are sent; bytes go out as rows come off the cursor
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                // sync flush so every periodic flush of the export reaches the client
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, 8192, true)) {
+                    productExportService.exportProducts(compressed, exportFormat);
+                }
+            } else {
+                productExportService.exportProducts(out, exportFormat);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=products." + exportFormat.name().toLowerCase(Locale.ROOT))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     @PutMapping("/{id}")
-    @Operation(summary = "Update a Product by ID")
-    public ResponseEntity<ApiResponse<Product>> updateProduct(@PathVariable Long id, @RequestBody ProductRequest request) {
+    @Operation(summary = "Update a Product by ID (send If-Match with the version you read to reject lost updates)")
+    public ResponseEntity<ApiResponse<Product>> updateProduct(
+            @PathVariable Long id, @RequestBody ProductRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Product product = productService.updateProduct(id, request, parseVersion(ifMatch));
         ApiResponse<Product> response = ApiResponse.<Product>builder()
                 .message("Product ID: " + id + " has been updated successfully")
-                .payload(productService.updateProduct(id, request))
+                .payload(product)
+                .status(HttpStatus.OK.value())
+                .build();
+        return ResponseEntity.ok().eTag(String.valueOf(product.getVersion())).body(response);
+    }
+
+    // If-Match carries the ETag of an earlier response: the quoted product version
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("If-Match must be a product version, e.g. \"3\"");
+        }
+    }
+
+    @PutMapping
+    @Operation(summary = "Update multiple products (null fields are left unchanged)")
+    public ResponseEntity<ApiResponse<BulkProductReport>> updateProducts(@RequestBody List<ProductPatchRequest> requests) {
+        BulkProductReport report = productService.updateProducts(requests);
+        ApiResponse<BulkProductReport> response = ApiResponse.<BulkProductReport>builder()
+                .message("Updated " + report.getApplied() + " of " + report.getRequested() + " products")
+                .payload(report)
+                .status(HttpStatus.OK.value())
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping
+    @Operation(summary = "Delete multiple products by ID")
+    public ResponseEntity<ApiResponse<BulkProductReport>> deleteProducts(@RequestBody List<Long> ids) {
+        BulkProductReport report = productService.deleteProducts(ids);
+        ApiResponse<BulkProductReport> response = ApiResponse.<BulkProductReport>builder()
+                .message("Deleted " + report.getApplied() + " of " + report.getRequested() + " products")
+                .payload(report)
+                .status(HttpStatus.OK.value())
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/{id}/stock/increment")
+    @Operation(summary = "Atomically add stock to a Product")
+    public ResponseEntity<ApiResponse<StockLevelResponse>> increaseStock(
+            @PathVariable Long id, @RequestParam(value = "quantity") Integer quantity) {
+        ApiResponse<StockLevelResponse> response = ApiResponse.<StockLevelResponse>builder()
+                .message("Stock of product ID: " + id + " increased by " + quantity)
+                .payload(stockService.increaseStock(id, quantity))
+                .status(HttpStatus.OK.value())
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/{id}/stock/decrement")
+    @Operation(summary = "Atomically take stock from a Product, failing when not enough is left")
+    public ResponseEntity<ApiResponse<StockLevelResponse>> decreaseStock(
+            @PathVariable Long id, @RequestParam(value = "quantity") Integer quantity) {
+        ApiResponse<StockLevelResponse> response = ApiResponse.<StockLevelResponse>builder()
+                .message("Stock of product ID: " + id + " decreased by " + quantity)
+                .payload(stockService.decreaseStock(id, quantity))
+                .status(HttpStatus.OK.value())
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/stock/decrement")
+    @Operation(summary = "Take stock from several Products at once (all or nothing, for checkout)")
+    public ResponseEntity<ApiResponse<List<StockLevelResponse>>> decreaseStock(
+            @RequestBody List<StockAdjustmentRequest> requests) {
+        ApiResponse<List<StockLevelResponse>> response = ApiResponse.<List<StockLevelResponse>>builder()
+                .message("Stock of " + requests.size() + " products decreased successfully")
+                .payload(stockService.decreaseStock(requests))
                 .status(HttpStatus.OK.value())
                 .build();
         return ResponseEntity.ok(response);
@@ -56,22 +247,26 @@ public class ProductController {
 
     @GetMapping("/{id}")
     @Operation(summary = "Get a Product by ID")
-    public ResponseEntity<ApiResponse<Product>> getProductById(@PathVariable Long id) {
-        ApiResponse<Product> response = ApiResponse.<Product>builder()
+    public ResponseEntity<ApiResponse<ProductResponse>> getProductById(@PathVariable Long id) {
+        ProductResponse product = productService.getProductById(id);
+        ApiResponse<ProductResponse> response = ApiResponse.<ProductResponse>builder()
                 .message("Product ID: " + id + " fetched successfully")
-                .payload(productService.getProductById(id))
+                .payload(product)
                 .status(HttpStatus.CREATED.value())
                 .build();
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(String.valueOf(product.getVersion())).body(response);
     }
 
     @GetMapping
-    @Operation(summary = "Get all Products (Paginated)")
+    @Operation(summary = "Get all Products (Paginated, pass 'after' for cursor paging)")
     public ResponseEntity<ApiResponse<ProductPageResponse>> getAllProducts(
             @RequestParam(value = "page", defaultValue = "1") Integer page,
-            @RequestParam(value = "size", defaultValue = "10") Integer size) {
+            @RequestParam(value = "size", defaultValue = "10") Integer size,
+            @RequestParam(value = "after", required = false) String after) {
 
-        ProductPageResponse productPageResponse = productService.getAllProducts(page, size);
+        ProductPageResponse productPageResponse = after == null
+                ? productService.getAllProducts(page, size)
+                : productService.getProductsAfter(after, size);
 
         ApiResponse<ProductPageResponse> response = ApiResponse.<ProductPageResponse>builder()
                 .message("Products fetched successfully")
@@ -86,24 +281,50 @@ public class ProductController {
     //Get products by search name
     @GetMapping("/search")
     @Operation(summary = "Search Products by name")
-    public ResponseEntity<ApiResponse<List<Product>>> findProductBySearchName(@RequestParam(value = "name", defaultValue = "") String name) {
-        ApiResponse<List<Product>> response = ApiResponse.<List<Product>>builder()
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> findProductBySearchName(
+            @RequestParam(value = "name", defaultValue = "") String name,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        ApiResponse<List<ProductResponse>> response = ApiResponse.<List<ProductResponse>>builder()
                 .message("Products matching name '" + name + "' fetched successfully")
-                .payload(productService.findProductBySearchName(name))
+                .payload(productService.findProductBySearchName(name, limit))
                 .status(HttpStatus.CREATED.value())
                 .build();
         return ResponseEntity.ok(response);
     }
 
+    //Typeahead suggestions by name prefix
+    @GetMapping("/typeahead")
+    @Operation(summary = "Suggest Products by name prefix")
+    public ResponseEntity<ApiResponse<List<ProductSuggestion>>> typeahead(
+            @RequestParam(value = "prefix", defaultValue = "") String prefix,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        ApiResponse<List<ProductSuggestion>> response = ApiResponse.<List<ProductSuggestion>>builder()
+                .message("Products starting with '" + prefix + "' fetched successfully")
+                .payload(productService.typeahead(prefix, limit))
+                .status(HttpStatus.OK.value())
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
     //Get low-stock products
     @GetMapping("/low-stock")
-    @Operation(summary = "Get low-stock products")
-    public ResponseEntity<ApiResponse<List<Product>>> getLowStockProducts(@RequestParam(value = "quantity") Integer quantity) {
-        ApiResponse<List<Product>> response = ApiResponse.<List<Product>>builder()
+    @Operation(summary = "Get low-stock products (ordered by quantity, cursor paginated)")
+    public ResponseEntity<ApiResponse<LowStockPageResponse>> getLowStockProducts(
+            @RequestParam(value = "quantity") Integer quantity,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "after", required = false) String after) {
+        ApiResponse<LowStockPageResponse> response = ApiResponse.<LowStockPageResponse>builder()
                 .message("Products with quantity less than " + quantity + " fetched successfully")
-                .payload(productService.getLowStockProducts(quantity))
+                .payload(productService.getLowStockProducts(quantity, size, after))
                 .status(HttpStatus.CREATED.value())
                 .build();
         return ResponseEntity.ok(response);
     }
+
+    //Stream low-stock threshold crossings
+    @GetMapping(value = "/low-stock/alerts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subscribe to low-stock alerts (Server-Sent Events, resumable with Last-Event-ID)")
+    public SseEmitter streamLowStockAlerts(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return lowStockAlertPublisher.subscribe(lastEventId);
+    }
 }
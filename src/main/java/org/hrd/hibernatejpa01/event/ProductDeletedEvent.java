@@ -0,0 +1,7 @@
+package org.hrd.hibernatejpa01.event;
+
+/**
+ * Published after a product has been deleted.
+ */
+public record ProductDeletedEvent(Long id) {
+}
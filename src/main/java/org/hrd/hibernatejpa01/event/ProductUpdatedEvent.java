@@ -0,0 +1,9 @@
+package org.hrd.hibernatejpa01.event;
+
+import org.hrd.hibernatejpa01.model.entity.Product;
+
+/**
+ * Published after a product has been updated; {@code previousQuantity} is the stock before the change.
+ */
+public record ProductUpdatedEvent(Product product, Integer previousQuantity) {
+}
@@ -0,0 +1,11 @@
+package org.hrd.hibernatejpa01.event;
+
+import org.hrd.hibernatejpa01.model.entity.Product;
+
+import java.util.List;
+
+/**
+ * Published after new products have been committed.
+ */
+public record ProductsCreatedEvent(List<Product> products) {
+}
@@ -0,0 +1,7 @@
+package org.hrd.hibernatejpa01.exception;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -2,8 +2,10 @@ package org.hrd.hibernatejpa01.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.hrd.hibernatejpa01.model.dto.response.ErrorResponse;
+import org.hrd.hibernatejpa01.util.CoarseClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -14,7 +16,6 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -36,7 +37,7 @@ public class GlobalExceptionHandler {
         body.put("title", title);
         body.put("status", status.value());
         body.put("instance", instance);
-        body.put("timestamp", LocalDateTime.now());
+        body.put("timestamp", CoarseClock.now());
         if (errors != null && !errors.isEmpty()) {
             body.put("errors", errors);
         }
@@ -65,6 +66,28 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(HttpStatus.NOT_FOUND, "Not Found", request.getRequestURI(), errors);
     }
 
+    /** ConflictException **/
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleConflictException(
+            ConflictException e,
+            HttpServletRequest request
+    ) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("error", e.getMessage());
+        return buildErrorResponse(HttpStatus.CONFLICT, "Conflict", request.getRequestURI(), errors);
+    }
+
+    /** Concurrent modification detected through Product.version **/
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException e,
+            HttpServletRequest request
+    ) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("error", "The product was modified concurrently, please retry");
+        return buildErrorResponse(HttpStatus.CONFLICT, "Conflict", request.getRequestURI(), errors);
+    }
+
     /** MaxUploadSizeExceededException **/
     @ExceptionHandler(MaxUploadSizeExceededException.class)
     public ResponseEntity<Map<String, Object>> handleMaxUploadSizeExceededException(
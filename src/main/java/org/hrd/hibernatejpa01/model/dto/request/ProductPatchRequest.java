@@ -0,0 +1,28 @@
+package org.hrd.hibernatejpa01.model.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// one row of a bulk update; fields left null keep their current value
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductPatchRequest {
+    @NotNull(message = "Not blank")
+    private Long id;
+
+    @Size(min = 1, max = 100, message = "Size must be between 1 and 100")
+    private String name;
+
+    @Positive(message = "Not negative")
+    private Double price;
+
+    @Positive(message = "Not negative")
+    private Integer quantity;
+}
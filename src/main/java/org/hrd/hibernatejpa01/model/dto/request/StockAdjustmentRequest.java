@@ -0,0 +1,21 @@
+package org.hrd.hibernatejpa01.model.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StockAdjustmentRequest {
+    @NotNull(message = "Not blank")
+    private Long productId;
+
+    @NotNull(message = "Not blank")
+    @Positive(message = "Must be greater than 0")
+    private Integer quantity;
+}
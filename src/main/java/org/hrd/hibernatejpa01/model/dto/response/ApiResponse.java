@@ -3,6 +3,7 @@ package org.hrd.hibernatejpa01.model.dto.response;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Getter;
+import org.hrd.hibernatejpa01.util.CoarseClock;
 
 import java.time.LocalDateTime;
 
@@ -13,5 +14,5 @@ public class ApiResponse<T> {
     private String message;
     private T payload;
     private int status;
-    private final LocalDateTime instant = LocalDateTime.now();
+    private final LocalDateTime instant = CoarseClock.now();
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package org.hrd.hibernatejpa01.model.dto.response;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkProductReport {
+    private int requested;
+    private int applied;
+    private List<Long> notFound = new ArrayList<>();
+    private List<RejectedRow> rejected = new ArrayList<>();   // line is the 1-based position in the request
+}
@@ -2,6 +2,7 @@ package org.hrd.hibernatejpa01.model.dto.response;
 
 import lombok.Builder;
 import lombok.Getter;
+import org.hrd.hibernatejpa01.util.CoarseClock;
 
 import java.time.LocalDateTime;
 
@@ -11,5 +12,5 @@ public class ErrorResponse {
     private Boolean success;
     private int status;
     private String message;
-    private final LocalDateTime timestamp = LocalDateTime.now();
+    private final LocalDateTime timestamp = CoarseClock.now();
 }
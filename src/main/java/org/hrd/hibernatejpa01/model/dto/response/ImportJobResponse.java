@@ -0,0 +1,29 @@
+package org.hrd.hibernatejpa01.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.hrd.hibernatejpa01.model.enums.ImportFormat;
+import org.hrd.hibernatejpa01.model.enums.ImportJobStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportJobResponse {
+    private UUID id;
+    private ImportFormat format;
+    private ImportJobStatus status;
+    private int chunksCommitted;
+    private long rowsProcessed;      // accepted + rejected rows in committed chunks
+    private long rowsFailed;         // rejected by validation
+    private Double rowsPerSecond;    // since the job started, until it finished
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,16 @@
+package org.hrd.hibernatejpa01.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.hrd.hibernatejpa01.model.enums.LowStockAlertType;
+
+@Data
+@AllArgsConstructor
+public class LowStockAlert {
+    private long sequence;       // also the SSE event id
+    private LowStockAlertType type;
+    private Long productId;
+    private String name;
+    private Integer quantity;
+    private int threshold;
+}
@@ -0,0 +1,13 @@
+package org.hrd.hibernatejpa01.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class LowStockPageResponse {
+    private List<LowStockProduct> products;
+    private PaginationResponse pagination;
+}
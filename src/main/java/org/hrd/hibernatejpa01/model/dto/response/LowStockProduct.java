@@ -0,0 +1,13 @@
+package org.hrd.hibernatejpa01.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LowStockProduct {
+    private Long id;
+    private String name;
+    private Double price;
+    private Integer quantity;
+}
@@ -1,16 +1,20 @@
 package org.hrd.hibernatejpa01.model.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
 
 @Data
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PaginationResponse {
-    private int totalElements;   // total count of items
-    private int currentPage;     // current page number
-    private int pageSize;        // size of each page
-    private int totalPages;      // total number of pages
+    private Integer totalElements;   // total count of items
+    private Integer currentPage;     // current page number, null in cursor mode
+    private Integer pageSize;        // size of each page
+    private Integer totalPages;      // total number of pages
+    private String nextCursor;       // opaque cursor of the next page, null on the last page
+    private boolean hasNext;         // whether another page follows, independent of totalElements
 
     public PaginationResponse(int totalElements, int currentPage, int pageSize) {
         this.totalElements = totalElements;
@@ -19,4 +23,3 @@ public class PaginationResponse {
         this.totalPages = (totalElements / pageSize) + ((totalElements % pageSize) > 0 ? 1 : 0);
     }
 }
-
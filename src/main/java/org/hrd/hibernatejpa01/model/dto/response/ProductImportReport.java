@@ -0,0 +1,40 @@
+package org.hrd.hibernatejpa01.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductImportReport {
+    private long totalRows;
+    private long accepted;
+    private long rejected;
+    private int chunks;          // chunks committed, one transaction each
+    private String error;        // set when the stream could not be read to the end
+    private List<RejectedRow> rejectedRows = new ArrayList<>();   // the first ones only; rejected counts all
+
+    @JsonIgnore
+    private final int maxRejectedRows;
+
+    public ProductImportReport(int maxRejectedRows) {
+        this.maxRejectedRows = maxRejectedRows;
+    }
+
+    public void reject(int line, String error) {
+        rejected++;
+        totalRows++;
+        if (rejectedRows.size() < maxRejectedRows) {
+            rejectedRows.add(new RejectedRow(line, error));
+        }
+    }
+
+    public void addChunk(int acceptedRows) {
+        chunks++;
+        accepted += acceptedRows;
+        totalRows += acceptedRows;
+    }
+}
@@ -0,0 +1,74 @@
+package org.hrd.hibernatejpa01.model.dto.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.hrd.hibernatejpa01.model.entity.Product;
+
+import java.io.IOException;
+
+/**
+ * Read model of a product, filled by JPQL constructor projections so read paths never create
+ * managed entities. Same JSON shape as {@link Product}.
+ */
+@Data
+@AllArgsConstructor
+@JsonSerialize(using = ProductResponse.Serializer.class)
+public class ProductResponse {
+    private Long id;
+    private String name;
+    private Double price;
+    private Integer quantity;
+    private Long version;
+
+    public static ProductResponse from(Product product) {
+        return new ProductResponse(product.getId(), product.getName(), product.getPrice(),
+                product.getQuantity(), product.getVersion());
+    }
+
+    // writes the fields straight to the generator, list pages serialize without bean introspection
+    static class Serializer extends StdSerializer<ProductResponse> {
+
+        Serializer() {
+            super(ProductResponse.class);
+        }
+
+        @Override
+        public void serialize(ProductResponse product, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject(product);
+            writeNumber(generator, "id", product.id);
+            if (product.name == null) {
+                generator.writeNullField("name");
+            } else {
+                generator.writeStringField("name", product.name);
+            }
+            generator.writeFieldName("price");
+            if (product.price == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(product.price);
+            }
+            generator.writeFieldName("quantity");
+            if (product.quantity == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(product.quantity);
+            }
+            writeNumber(generator, "version", product.version);
+            generator.writeEndObject();
+        }
+
+        private static void writeNumber(JsonGenerator generator, String field, Long value) throws IOException {
+            generator.writeFieldName(field);
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+    }
+}
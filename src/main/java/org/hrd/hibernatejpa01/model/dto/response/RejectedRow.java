@@ -0,0 +1,11 @@
+package org.hrd.hibernatejpa01.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RejectedRow {
+    private int line;
+    private String error;
+}
@@ -0,0 +1,11 @@
+package org.hrd.hibernatejpa01.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class StockLevelResponse {
+    private Long productId;
+    private Integer quantity;    // stock after the adjustment
+}
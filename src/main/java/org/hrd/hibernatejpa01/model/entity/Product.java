@@ -2,11 +2,16 @@ package org.hrd.hibernatejpa01.model.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hrd.hibernatejpa01.config.HibernateCacheConfig;
 
 import java.math.BigDecimal;
 
 @Entity
 @Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.PRODUCT_REGION)
 @Getter
 @Setter
 @Builder
@@ -14,8 +19,11 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class Product {
 
+    // pooled sequence instead of IDENTITY so Hibernate can batch inserts;
+    // allocationSize must match the sequence increment
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 100)
@@ -27,4 +35,7 @@ public class Product {
     @Column(nullable = false)
     private Integer quantity;
 
+    @Version
+    private Long version;
+
 }
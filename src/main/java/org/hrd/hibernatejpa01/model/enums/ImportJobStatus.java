@@ -0,0 +1,13 @@
+package org.hrd.hibernatejpa01.model.enums;
+
+public enum ImportJobStatus {
+    QUEUED,     // spooled, waiting for a job thread
+    RUNNING,    // chunks being written; resumed after a restart
+    COMPLETED,  // every chunk committed
+    FAILED,     // stopped on unreadable input or a database error; committed chunks stay
+    CANCELLED;  // stopped on request; committed chunks stay
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,6 @@
+package org.hrd.hibernatejpa01.model.enums;
+
+public enum LowStockAlertType {
+    LOW,        // quantity dropped below the threshold
+    RESTOCKED   // quantity climbed back to the threshold or above
+}
@@ -0,0 +1,174 @@
+package org.hrd.hibernatejpa01.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.hrd.hibernatejpa01.model.entity.ImportJob;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.model.enums.ImportJobStatus;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// not read-only anywhere: read-only transactions go to a replica, which may not have the job or its
+// chunks yet, and resuming from a lagging chunk list would import chunks twice
+@Repository
+@RequiredArgsConstructor
+@Transactional
+public class ImportJobRepository {
+
+    private static final List<ImportJobStatus> UNFINISHED = List.of(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING);
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final ProductRepository productRepository;
+
+    // committed chunk totals of one job
+    public record Progress(int chunks, long accepted, long rejected) {
+    }
+
+    public void createJob(ImportJob job, String owner) {
+        em.persist(job);
+        em.flush();
+        em.createNativeQuery("update import_jobs set owner = :owner, heartbeat_at = now() where id = :id")
+                .setParameter("owner", owner)
+                .setParameter("id", job.getId())
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("import_jobs")
+                .executeUpdate();
+    }
+
+    /**
+     * Takes over an unfinished job that has no owner, or whose owner has not renewed its lease within
+     * {@code leaseTimeout}. Row locks make concurrent claims of one job serialize, and only one applies.
+     *
+     * @return false when the job is finished or another instance holds a live lease on it
+     */
+    public boolean claimJob(UUID id, String owner, Duration leaseTimeout) {
+        return em.createNativeQuery("""
+                        update import_jobs set owner = :owner, heartbeat_at = now()
+                        where id = :id and status in ('QUEUED', 'RUNNING')
+                          and (owner is null or owner = :owner
+                               or heartbeat_at < now() - make_interval(secs => :leaseSeconds))""")
+                .setParameter("owner", owner)
+                .setParameter("id", id)
+                .setParameter("leaseSeconds", leaseTimeout.toMillis() / 1000.0)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("import_jobs")
+                .executeUpdate() == 1;
+    }
+
+    // hands a claimed job back, for an instance that cannot run it after all
+    public void releaseJob(UUID id, String owner) {
+        em.createNativeQuery("update import_jobs set owner = null where id = :id and owner = :owner")
+                .setParameter("id", id)
+                .setParameter("owner", owner)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("import_jobs")
+                .executeUpdate();
+    }
+
+    // one statement for all unfinished jobs of an instance
+    public int renewLeases(String owner) {
+        return em.createNativeQuery("""
+                        update import_jobs set heartbeat_at = now()
+                        where owner = :owner and status in ('QUEUED', 'RUNNING')""")
+                .setParameter("owner", owner)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("import_jobs")
+                .executeUpdate();
+    }
+
+    public ImportJob getJob(UUID id) {
+        return em.find(ImportJob.class, id);
+    }
+
+    public List<ImportJob> findUnfinishedJobs() {
+        return em.createQuery("select j from ImportJob j where j.status in :statuses order by j.createdAt", ImportJob.class)
+                .setParameter("statuses", UNFINISHED)
+                .getResultList();
+    }
+
+    /**
+     * Moves a queued or resumed job to RUNNING. Like {@link #markFinished}, it only applies to a job
+     * that is not finished, so a cancel racing with the job thread is never overwritten, and only for
+     * the instance holding its lease.
+     *
+     * @return false when the job was finished, by a cancel for instance, or claimed by another instance
+     */
+    public boolean markStarted(UUID id, String owner) {
+        return em.createNativeQuery("""
+                        update import_jobs set status = 'RUNNING', started_at = coalesce(started_at, :now)
+                        where id = :id and owner = :owner and status in ('QUEUED', 'RUNNING')""")
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", id)
+                .setParameter("owner", owner)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("import_jobs")
+                .executeUpdate() == 1;
+    }
+
+    /**
+     * @return false when the job already was COMPLETED, FAILED or CANCELLED; that status stays
+     */
+    public boolean markFinished(UUID id, ImportJobStatus status, String error) {
+        return em.createQuery("""
+                        update ImportJob j set j.status = :status, j.error = :error, j.finishedAt = :now
+                        where j.id = :id and j.status in :unfinished""")
+                .setParameter("status", status)
+                .setParameter("error", error)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", id)
+                .setParameter("unfinished", UNFINISHED)
+                .executeUpdate() == 1;
+    }
+
+    /**
+     * Inserts the chunk's products and its chunk record in one transaction: after a restart a chunk
+     * is either fully present, and skipped, or absent, and written again.
+     */
+    public void commitChunk(UUID jobId, int chunk, List<Product> products, int rejected) {
+        if (!products.isEmpty()) {
+            productRepository.createProducts(products);
+        }
+        em.createNativeQuery("""
+                        insert into import_job_chunks (job_id, chunk, accepted, rejected)
+                        values (:jobId, :chunk, :accepted, :rejected)""")
+                .setParameter("jobId", jobId)
+                .setParameter("chunk", chunk)
+                .setParameter("accepted", products.size())
+                .setParameter("rejected", rejected)
+                .unwrap(NativeQuery.class)
+                // without a query space Hibernate would invalidate every second-level cache region
+                .addSynchronizedQuerySpace("import_job_chunks")
+                .executeUpdate();
+    }
+
+    public Set<Integer> findCommittedChunks(UUID jobId) {
+        List<?> chunks = em.createNativeQuery("select chunk from import_job_chunks where job_id = :jobId")
+                .setParameter("jobId", jobId)
+                .getResultList();
+        Set<Integer> committed = new HashSet<>(chunks.size() * 2);
+        for (Object chunk : chunks) {
+            committed.add(((Number) chunk).intValue());
+        }
+        return committed;
+    }
+
+    public Progress getProgress(UUID jobId) {
+        Object[] row = (Object[]) em.createNativeQuery("""
+                        select count(*), coalesce(sum(accepted), 0), coalesce(sum(rejected), 0)
+                        from import_job_chunks where job_id = :jobId""")
+                .setParameter("jobId", jobId)
+                .getSingleResult();
+        return new Progress(((Number) row[0]).intValue(), ((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+    }
+}
@@ -1,70 +1,402 @@
 package org.hrd.hibernatejpa01.repository;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.model.dto.request.ProductPatchRequest;
 import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.dto.response.LowStockProduct;
+import org.hrd.hibernatejpa01.model.dto.response.ProductResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductSuggestion;
 import org.hrd.hibernatejpa01.model.entity.Product;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
 @Transactional
+// product.repository timer, tagged with class and method
+@Timed("product.repository")
 public class ProductRepository {
 
     @PersistenceContext
     private EntityManager em;
 
-    public void createProducts(Product product) {
-        em.persist(product);
+    private final ProductProperties productProperties;
+
+    // a product changed by a bulk update, with its quantity before the change
+    public record UpdatedProduct(Product product, Integer previousQuantity) {
     }
 
-    public Product updateProduct(Long id, ProductRequest request) {
-        Product product = em.find(Product.class, id);
+    public void createProducts(List<Product> products) {
+        int batchSize = productProperties.getBulk().getBatchSize();
+        for (int i = 0; i < products.size(); i++) {
+            em.persist(products.get(i));
+            // flush a full JDBC batch and detach it so the persistence context stays small
+            if ((i + 1) % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    // applies the request to a product loaded in the caller's transaction
+    public Product updateProduct(Product product, ProductRequest request) {
         product.setName(request.getName().trim());
         product.setPrice(request.getPrice());
         product.setQuantity(request.getQuantity());
         return product;
     }
 
-    public void deleteProduct(Long id) {
+    /**
+     * Writes the request's name and price, but not its quantity, and detaches the product: what the
+     * caller sets on it afterwards stays out of the database. Used while the stock write-behind
+     * buffer owns the quantity.
+     */
+    public Product updateProductDetails(Product product, ProductRequest request) {
+        product.setName(request.getName().trim());
+        product.setPrice(request.getPrice());
+        // checks the version and bumps it now, before the caller buffers the new quantity
+        em.flush();
+        em.detach(product);
+        return product;
+    }
+
+    /**
+     * Applies the patches with one {@code UPDATE ... FROM unnest(...)} per {@code statementRows} rows:
+     * the patch columns travel as four array parameters, whatever the number of rows. The second,
+     * unmodified {@code products} in FROM reads the row as it was before the update.
+     * Ids must be distinct; ids that do not exist are simply absent from the result.
+     */
+    public List<UpdatedProduct> updateProducts(List<ProductPatchRequest> patches) {
+        em.flush();
+        Session session = em.unwrap(Session.class);
+        int statementRows = productProperties.getBulk().getStatementRows();
+        List<UpdatedProduct> updated = new ArrayList<>(patches.size());
+        for (int from = 0; from < patches.size(); from += statementRows) {
+            List<ProductPatchRequest> rows = patches.subList(from, Math.min(from + statementRows, patches.size()));
+            updated.addAll(session.doReturningWork(connection -> updateRows(connection, rows)));
+        }
+        evictAfterCommit(updated.stream().map(change -> change.product().getId()).toList());
+        return updated;
+    }
+
+    private static List<UpdatedProduct> updateRows(Connection connection, List<ProductPatchRequest> rows)
+            throws SQLException {
+        Long[] ids = new Long[rows.size()];
+        String[] names = new String[rows.size()];
+        Double[] prices = new Double[rows.size()];
+        Integer[] quantities = new Integer[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            ProductPatchRequest row = rows.get(i);
+            ids[i] = row.getId();
+            names[i] = row.getName();
+            prices[i] = row.getPrice();
+            quantities[i] = row.getQuantity();
+        }
+        try (PreparedStatement statement = connection.prepareStatement("""
+                update products p
+                set name = coalesce(v.name, p.name),
+                    price = coalesce(v.price, p.price),
+                    quantity = coalesce(v.quantity, p.quantity),
+                    version = p.version + 1
+                from unnest(?, ?, ?, ?) as v(id, name, price, quantity)
+                join products old on old.id = v.id
+                where p.id = v.id
+                returning p.id, p.name, p.price, p.quantity, p.version, old.quantity""")) {
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            statement.setArray(2, connection.createArrayOf("varchar", names));
+            statement.setArray(3, connection.createArrayOf("float8", prices));
+            statement.setArray(4, connection.createArrayOf("integer", quantities));
+            List<UpdatedProduct> updated = new ArrayList<>(rows.size());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Product product = Product.builder()
+                            .id(resultSet.getLong(1))
+                            .name(resultSet.getString(2))
+                            .price(resultSet.getDouble(3))
+                            .quantity(resultSet.getInt(4))
+                            .version(resultSet.getLong(5))
+                            .build();
+                    updated.add(new UpdatedProduct(product, resultSet.getInt(6)));
+                }
+            }
+            return updated;
+        }
+    }
+
+    /**
+     * Deletes with one {@code DELETE ... WHERE id = any(?)} per {@code statementRows} ids.
+     *
+     * @return the ids that existed and were deleted
+     */
+    public List<Long> deleteProducts(List<Long> ids) {
+        em.flush();
+        Session session = em.unwrap(Session.class);
+        int statementRows = productProperties.getBulk().getStatementRows();
+        List<Long> deleted = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += statementRows) {
+            Long[] chunk = ids.subList(from, Math.min(from + statementRows, ids.size())).toArray(Long[]::new);
+            deleted.addAll(session.doReturningWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "delete from products where id = any(?) returning id")) {
+                    statement.setArray(1, connection.createArrayOf("bigint", chunk));
+                    List<Long> rows = new ArrayList<>(chunk.length);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            rows.add(resultSet.getLong(1));
+                        }
+                    }
+                    return rows;
+                }
+            }));
+        }
+        evictAfterCommit(deleted);
+        return deleted;
+    }
+
+    public boolean deleteProduct(Long id) {
         Product product = em.find(Product.class, id);
+        if (product == null) {
+            return false;
+        }
         em.remove(product);
+        return true;
+    }
+
+    /**
+     * Adds {@code delta} (negative to take stock) in one conditional UPDATE, so concurrent adjustments
+     * of the same row serialize on the row lock instead of overwriting each other.
+     *
+     * @return a detached snapshot of the product after the change, or {@code null} when it does not
+     * exist or the result would fall outside {@code 0..maxQuantity}
+     */
+    public Product adjustStock(Long id, int delta, int maxQuantity) {
+        List<?> rows = em.createNativeQuery("""
+                        update products set quantity = quantity + :delta, version = version + 1
+                        where id = :id and quantity + :delta between 0 and :maxQuantity
+                        returning id, name, price, quantity, version""")
+                .setParameter("delta", delta)
+                .setParameter("id", id)
+                .setParameter("maxQuantity", maxQuantity)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        evictAfterCommit(id);
+        return toProduct((Object[]) rows.get(0));
+    }
+
+    /**
+     * Unconditionally adds {@code delta}; used for write-behind deltas whose bounds were already
+     * checked against the buffered quantity.
+     *
+     * @return a detached snapshot of the product after the change, or {@code null} when it no longer exists
+     */
+    public Product applyStockDelta(Long id, long delta) {
+        List<?> rows = em.createNativeQuery("""
+                        update products set quantity = quantity + :delta, version = version + 1
+                        where id = :id
+                        returning id, name, price, quantity, version""")
+                .setParameter("delta", delta)
+                .setParameter("id", id)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        evictAfterCommit(id);
+        return toProduct((Object[]) rows.get(0));
+    }
+
+    private static Product toProduct(Object[] columns) {
+        return Product.builder()
+                .id(((Number) columns[0]).longValue())
+                .name((String) columns[1])
+                .price(((Number) columns[2]).doubleValue())
+                .quantity(((Number) columns[3]).intValue())
+                .version(((Number) columns[4]).longValue())
+                .build();
     }
 
+    // native writes bypass Hibernate, so the cached copy is dropped now and again once the change is visible
+    private void evictAfterCommit(Long id) {
+        evictAfterCommit(List.of(id));
+    }
+
+    private void evictAfterCommit(Collection<Long> ids) {
+        Cache cache = em.getEntityManagerFactory().getCache();
+        ids.forEach(id -> cache.evict(Product.class, id));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(id -> cache.evict(Product.class, id));
+            }
+        });
+    }
+
+    // not read-only: a read-only transaction makes Spring borrow a connection up front to mark it
+    // read-only, while this one only borrows when the second-level cache misses
     public Product getProductById(Long id) {
         return em.find(Product.class, id);
     }
 
+    // read-write on purpose so it is served by the primary: callers derive writes from the result
+    public Product getCurrentProduct(Long id) {
+        return em.find(Product.class, id);
+    }
 
+    @Transactional(readOnly = true)
     public int countProducts() {
         Long count = em.createQuery("select count(p) from Product p", Long.class)
                 .getSingleResult();
         return count.intValue();
     }
 
-    public List<Product> getAllProducts(Integer page, Integer size) {
-        int offset = (page - 1) * size;
-        return em.createQuery("select p from Product p", Product.class)
+    // planner row estimate, maintained by ANALYZE/autovacuum; negative when never analyzed
+    @Transactional(readOnly = true)
+    public long estimateProductCount() {
+        List<?> result = em.createNativeQuery(
+                        "select cast(reltuples as bigint) from pg_class where oid = to_regclass('products')")
+                .getResultList();
+        return result.isEmpty() ? -1 : ((Number) result.get(0)).longValue();
+    }
+
+    // read paths project straight into ProductResponse: no managed entities, no dirty-checking snapshots
+    private static final String SELECT_PRODUCT_RESPONSE =
+            "select new org.hrd.hibernatejpa01.model.dto.response.ProductResponse(p.id, p.name, p.price, p.quantity, p.version) ";
+
+    @Transactional(readOnly = true)
+    public List<ProductResponse> getAllProducts(int offset, int limit) {
+        return em.createQuery(SELECT_PRODUCT_RESPONSE + "from Product p order by p.id", ProductResponse.class)
                 .setFirstResult(offset)
-                .setMaxResults(size)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // keyset page: served from the primary key index, cost does not grow with the position
+    @Transactional(readOnly = true)
+    public List<ProductResponse> getProductsAfter(Long lastId, int limit) {
+        return em.createQuery(SELECT_PRODUCT_RESPONSE + "from Product p where p.id > :lastId order by p.id",
+                        ProductResponse.class)
+                .setParameter("lastId", lastId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // ranked substring search, filtered and ordered through the trigram GiST index
+    @Transactional(readOnly = true)
+    public List<ProductResponse> findProductBySearchName(String name, int limit) {
+        String term = name.toLowerCase();
+        List<?> rows = em.createNativeQuery("""
+                        select p.id, p.name, p.price, p.quantity, p.version from products p
+                        where lower(p.name) like :pattern escape '\\'
+                        order by lower(p.name) <-> :term, p.id
+                        limit :limit""")
+                .setParameter("pattern", "%" + escapeLike(term) + "%")
+                .setParameter("term", term)
+                .setParameter("limit", limit)
                 .getResultList();
+        List<ProductResponse> products = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            products.add(new ProductResponse(
+                    ((Number) columns[0]).longValue(),
+                    (String) columns[1],
+                    ((Number) columns[2]).doubleValue(),
+                    ((Number) columns[3]).intValue(),
+                    ((Number) columns[4]).longValue()));
+        }
+        return products;
     }
 
-    public List<Product> findProductBySearchName(String name) {
-        String searchName = "%" + name.toLowerCase() + "%";
-        return em.createQuery("select p from Product p where LOWER(p.name) like :name", Product.class)
-                .setParameter("name", searchName)
+    // name-prefix lookup for typeahead, served in order by the C-collation prefix index
+    @Transactional(readOnly = true)
+    public List<ProductSuggestion> findProductSuggestions(String prefix, int limit) {
+        List<?> rows = em.createNativeQuery("""
+                        select p.id, p.name from products p
+                        where lower(p.name) collate "C" like :prefix escape '\\'
+                        order by lower(p.name) collate "C", p.id
+                        limit :limit""")
+                .setParameter("prefix", escapeLike(prefix.toLowerCase()) + "%")
+                .setParameter("limit", limit)
                 .getResultList();
+        List<ProductSuggestion> suggestions = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            suggestions.add(new ProductSuggestion(((Number) columns[0]).longValue(), (String) columns[1]));
+        }
+        return suggestions;
+    }
+
+    // streams every product name in id order without loading the table into the persistence context;
+    // read-write so it runs on the primary: the typeahead index never rereads what a lagging replica missed
+    public void scanProductNames(Consumer<ProductSuggestion> consumer) {
+        try (Stream<ProductSuggestion> rows = em.createQuery(
+                        "select new org.hrd.hibernatejpa01.model.dto.response.ProductSuggestion(p.id, p.name) "
+                                + "from Product p order by p.id", ProductSuggestion.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 5000)
+                .getResultStream()) {
+            rows.forEach(consumer);
+        }
+    }
+
+    // streams the whole catalog through a server-side cursor; projections keep the persistence context empty
+    @Transactional(readOnly = true)
+    public void scanProducts(Consumer<ProductResponse> consumer) {
+        try (Stream<ProductResponse> rows = em.createQuery(
+                        SELECT_PRODUCT_RESPONSE + "from Product p order by p.id", ProductResponse.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 5000)
+                .getResultStream()) {
+            rows.forEach(consumer);
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
-    public List<Product> getLowStockProducts(Integer quantity) {
-        return em.createQuery("select p from Product p where p.quantity < :quantity", Product.class)
+    // keyset page over (quantity, id), read by an index-only scan of idx_products_quantity
+    @Transactional(readOnly = true)
+    public List<LowStockProduct> getLowStockProducts(int quantity, int lastQuantity, long lastId, int limit) {
+        List<?> rows = em.createNativeQuery("""
+                        select p.id, p.name, p.price, p.quantity from products p
+                        where p.quantity < :quantity and (p.quantity, p.id) > (:lastQuantity, :lastId)
+                        order by p.quantity, p.id
+                        limit :limit""")
                 .setParameter("quantity", quantity)
+                .setParameter("lastQuantity", lastQuantity)
+                .setParameter("lastId", lastId)
+                .setParameter("limit", limit)
                 .getResultList();
+        List<LowStockProduct> products = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            products.add(new LowStockProduct(
+                    ((Number) columns[0]).longValue(),
+                    (String) columns[1],
+                    ((Number) columns[2]).doubleValue(),
+                    ((Number) columns[3]).intValue()));
+        }
+        return products;
     }
 
 }
@@ -0,0 +1,61 @@
+package org.hrd.hibernatejpa01.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+@Transactional
+public class StockJournalRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final ProductRepository productRepository;
+
+    // last journal epoch whose deltas are in the products table
+    public long getCheckpoint() {
+        return ((Number) em.createNativeQuery("select epoch from stock_journal_checkpoint where id = 1")
+                .getSingleResult()).longValue();
+    }
+
+    /**
+     * Applies the coalesced deltas of one journal epoch and advances the checkpoint in the same
+     * transaction. An epoch at or below the checkpoint was applied before and is skipped, which
+     * makes replaying a journal after a crash safe.
+     *
+     * @return snapshots of the products that changed, empty when the epoch was skipped
+     */
+    public List<Product> applyEpoch(long epoch, Map<Long, Long> deltas) {
+        long applied = ((Number) em.createNativeQuery(
+                        "select epoch from stock_journal_checkpoint where id = 1 for update")
+                .getSingleResult()).longValue();
+        if (applied >= epoch) {
+            return List.of();
+        }
+        List<Product> changed = new ArrayList<>(deltas.size());
+        // id order, so a flush and concurrent direct adjustments lock rows in the same order
+        deltas.keySet().stream().sorted().forEach(id -> {
+            Product product = productRepository.applyStockDelta(id, deltas.get(id));
+            if (product != null) {
+                changed.add(product);
+            }
+        });
+        em.createNativeQuery("update stock_journal_checkpoint set epoch = :epoch where id = 1")
+                .setParameter("epoch", epoch)
+                .unwrap(NativeQuery.class)
+                // without a query space Hibernate would invalidate every second-level cache region
+                .addSynchronizedQuerySpace("stock_journal_checkpoint")
+                .executeUpdate();
+        return changed;
+    }
+}
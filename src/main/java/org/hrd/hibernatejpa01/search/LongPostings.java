@@ -0,0 +1,57 @@
+package org.hrd.hibernatejpa01.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, duplicate-free list of product ids backed by a plain {@code long[]}.
+ * Not thread-safe; {@link ProductNameIndex} guards access.
+ */
+final class LongPostings {
+
+    private long[] ids = new long[4];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    long get(int index) {
+        return ids[index];
+    }
+
+    void add(long id) {
+        // ids mostly arrive in ascending order (startup scan, new sequence values)
+        if (size == 0 || ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return;
+        }
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        ensureCapacity();
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+    }
+
+    void remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        if (size < ids.length / 4 && ids.length > 4) {
+            ids = Arrays.copyOf(ids, Math.max(4, ids.length / 2));
+        }
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package org.hrd.hibernatejpa01.search;
+
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.event.ProductDeletedEvent;
+import org.hrd.hibernatejpa01.event.ProductUpdatedEvent;
+import org.hrd.hibernatejpa01.event.ProductsCreatedEvent;
+import org.hrd.hibernatejpa01.model.dto.response.ProductSuggestion;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory edge n-gram index over product names for typeahead.
+ * <p>
+ * Every name contributes its first {@code maxGram} lower-cased prefixes (packed 16 bits per char
+ * into a {@code long} key); each key maps to the sorted ids of the products starting with it.
+ * A query of up to {@code maxGram} chars is a single posting lookup, longer queries verify the
+ * candidates of their leading gram against the stored name. Results come back in id order.
+ * <p>
+ * Built from a streamed scan of {@code products} once the application is ready and kept
+ * current from the product change events; until the scan completes callers use the database.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.search", name = "typeahead-source", havingValue = "index")
+public class ProductNameIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductNameIndex.class);
+
+    // four UTF-16 chars fill a long key
+    private static final int MAX_PACKED_CHARS = 4;
+
+    private final ProductRepository productRepository;
+    private final int maxGram;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // primitive long keys on both, so the index holds no boxed ids or map entries per product
+    private final LongObjectMap<LongPostings> postings = new LongObjectMap<>();
+    // sized by the number of products, not by the largest id
+    private final LongObjectMap<String> names = new LongObjectMap<>();
+    // ids changed by events while the startup scan runs; the event is newer than the scanned row
+    private Set<Long> changedDuringBuild;
+    private volatile boolean ready;
+
+    public ProductNameIndex(ProductRepository productRepository, ProductProperties productProperties) {
+        this.productRepository = productRepository;
+        this.maxGram = Math.max(1, Math.min(productProperties.getSearch().getIndexMaxGram(), MAX_PACKED_CHARS));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long started = System.nanoTime();
+        int[] indexed = {0};
+        lock.writeLock().lock();
+        try {
+            changedDuringBuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            productRepository.scanProductNames(suggestion -> {
+                lock.writeLock().lock();
+                try {
+                    if (!changedDuringBuild.contains(suggestion.getId())) {
+                        put(suggestion.getId(), suggestion.getName());
+                        indexed[0]++;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringBuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        ready = true;
+        logger.info("Product name index built: {} products, {} keys in {} ms",
+                indexed[0], postings.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        String lower = prefix.toLowerCase(Locale.ROOT);
+        int gramLength = Math.min(lower.length(), maxGram);
+        boolean verify = lower.length() > gramLength;
+
+        lock.readLock().lock();
+        try {
+            LongPostings candidates = postings.get(key(lower, gramLength));
+            if (candidates == null) {
+                return List.of();
+            }
+            List<ProductSuggestion> suggestions = new ArrayList<>(Math.min(limit, candidates.size()));
+            for (int i = 0; i < candidates.size() && suggestions.size() < limit; i++) {
+                long id = candidates.get(i);
+                String name = names.get(id);
+                if (!verify || name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                    suggestions.add(new ProductSuggestion(id, name));
+                }
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsCreated(ProductsCreatedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : event.products()) {
+                markChanged(product.getId());
+                put(product.getId(), product.getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductUpdated(ProductUpdatedEvent event) {
+        lock.writeLock().lock();
+        try {
+            markChanged(event.product().getId());
+            put(event.product().getId(), event.product().getName());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductDeleted(ProductDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            // also keeps the startup scan from re-adding a row it read before the delete committed
+            markChanged(event.id());
+            String name = names.remove(event.id());
+            if (name != null) {
+                removeGrams(event.id(), name);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // under the write lock
+    private void markChanged(Long id) {
+        if (changedDuringBuild != null) {
+            changedDuringBuild.add(id);
+        }
+    }
+
+    // under the write lock
+    private void put(long id, String name) {
+        String previous = names.put(id, name);
+        if (previous != null) {
+            removeGrams(id, previous);
+        }
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (int length = 1; length <= Math.min(lower.length(), maxGram); length++) {
+            postings.computeIfAbsent(key(lower, length), key -> new LongPostings()).add(id);
+        }
+    }
+
+    private void removeGrams(long id, String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (int length = 1; length <= Math.min(lower.length(), maxGram); length++) {
+            long key = key(lower, length);
+            LongPostings ids = postings.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.size() == 0) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+
+    // names never contain NUL, so zero-padded keys of different lengths cannot collide
+    private static long key(String lower, int length) {
+        long key = 0;
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | lower.charAt(i);
+        }
+        return key;
+    }
+}
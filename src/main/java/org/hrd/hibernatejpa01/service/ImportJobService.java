@@ -0,0 +1,15 @@
+package org.hrd.hibernatejpa01.service;
+
+import org.hrd.hibernatejpa01.model.dto.response.ImportJobResponse;
+import org.hrd.hibernatejpa01.model.enums.ImportFormat;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+public interface ImportJobService {
+    ImportJobResponse submitJob(InputStream in, ImportFormat format);
+
+    ImportJobResponse getJob(UUID id);
+
+    ImportJobResponse cancelJob(UUID id);
+}
@@ -0,0 +1,10 @@
+package org.hrd.hibernatejpa01.service;
+
+import org.hrd.hibernatejpa01.model.enums.ImportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ProductExportService {
+    void exportProducts(OutputStream out, ImportFormat format) throws IOException;
+}
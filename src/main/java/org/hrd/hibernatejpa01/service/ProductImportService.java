@@ -0,0 +1,10 @@
+package org.hrd.hibernatejpa01.service;
+
+import org.hrd.hibernatejpa01.model.dto.response.ProductImportReport;
+import org.hrd.hibernatejpa01.model.enums.ImportFormat;
+
+import java.io.InputStream;
+
+public interface ProductImportService {
+    ProductImportReport importProducts(InputStream in, ImportFormat format);
+}
@@ -1,7 +1,12 @@
 package org.hrd.hibernatejpa01.service;
 
+import org.hrd.hibernatejpa01.model.dto.request.ProductPatchRequest;
 import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.dto.response.BulkProductReport;
+import org.hrd.hibernatejpa01.model.dto.response.LowStockPageResponse;
 import org.hrd.hibernatejpa01.model.dto.response.ProductPageResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductSuggestion;
 import org.hrd.hibernatejpa01.model.entity.Product;
 import org.springframework.stereotype.Service;
 
@@ -11,16 +16,27 @@ import java.util.List;
 public interface ProductService {
     List<Product> createProducts(List<ProductRequest> requests);
 
-    Product updateProduct(Long id, ProductRequest request);
+    /**
+     * @param expectedVersion version the client last read (If-Match), or null to skip the check
+     */
+    Product updateProduct(Long id, ProductRequest request, Long expectedVersion);
 
     void deleteProduct(Long id);
 
-    Product getProductById(Long id);
+    BulkProductReport updateProducts(List<ProductPatchRequest> requests);
+
+    BulkProductReport deleteProducts(List<Long> ids);
+
+    ProductResponse getProductById(Long id);
 
     ProductPageResponse getAllProducts(Integer page, Integer size);
 
-    List<Product> findProductBySearchName(String name);
+    ProductPageResponse getProductsAfter(String cursor, Integer size);
+
+    List<ProductResponse> findProductBySearchName(String name, Integer limit);
+
+    List<ProductSuggestion> typeahead(String prefix, Integer limit);
 
-    List<Product> getLowStockProducts(Integer quantity);
+    LowStockPageResponse getLowStockProducts(Integer quantity, Integer size, String after);
 
 }
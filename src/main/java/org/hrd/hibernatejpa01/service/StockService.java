@@ -0,0 +1,14 @@
+package org.hrd.hibernatejpa01.service;
+
+import org.hrd.hibernatejpa01.model.dto.request.StockAdjustmentRequest;
+import org.hrd.hibernatejpa01.model.dto.response.StockLevelResponse;
+
+import java.util.List;
+
+public interface StockService {
+    StockLevelResponse increaseStock(Long id, Integer quantity);
+
+    StockLevelResponse decreaseStock(Long id, Integer quantity);
+
+    List<StockLevelResponse> decreaseStock(List<StockAdjustmentRequest> requests);
+}
@@ -0,0 +1,422 @@
+package org.hrd.hibernatejpa01.service.implementation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.event.ProductsCreatedEvent;
+import org.hrd.hibernatejpa01.exception.BadRequestException;
+import org.hrd.hibernatejpa01.exception.ConflictException;
+import org.hrd.hibernatejpa01.exception.NotFoundException;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.dto.response.ImportJobResponse;
+import org.hrd.hibernatejpa01.model.entity.ImportJob;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.model.enums.ImportFormat;
+import org.hrd.hibernatejpa01.model.enums.ImportJobStatus;
+import org.hrd.hibernatejpa01.repository.ImportJobRepository;
+import org.hrd.hibernatejpa01.service.ImportJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Imports run as background jobs. The upload is spooled to disk and the request returns a job id;
+ * a job thread then reads the spool row by row and hands fixed-size chunks to a shared pool of
+ * writers, each chunk committed with its {@code import_job_chunks} record in one transaction.
+ * <p>
+ * Chunk boundaries depend only on row positions in the spool, so a job interrupted by a restart
+ * is resumed on startup and skips exactly the chunks already committed. That needs the spool to
+ * survive the restart: jobs are refused until {@code product.import-jobs.spool-dir} names a
+ * durable directory.
+ * <p>
+ * Status changes only apply to an unfinished job, so when a cancel and the job thread finish a job
+ * at the same time, the first one wins and the other is told.
+ * <p>
+ * Every instance owns the jobs it submitted or claimed and renews a lease on them in the background.
+ * Only jobs without an owner, or whose owner stopped renewing for {@code lease-timeout}, are resumed,
+ * by the first instance to claim them, so jobs are not run twice when several instances start.
+ */
+@Service
+public class ImportJobServiceImpl implements ImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobServiceImpl.class);
+
+    private static final class JobHandle {
+        volatile boolean cancelled;
+    }
+
+    private final ImportJobRepository importJobRepository;
+    private final ProductRequestValidator productRequestValidator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int writers;
+    private final Path spoolDir;
+    private final Duration leaseTimeout;
+    // identifies this instance in import_jobs.owner; a restart starts with a new one
+    private final String owner = UUID.randomUUID().toString();
+
+    private final ThreadPoolExecutor jobExecutor;
+    private final ExecutorService writerExecutor;
+    private final ScheduledExecutorService leaseKeeper;
+    private final Map<UUID, JobHandle> activeJobs = new ConcurrentHashMap<>();
+    private volatile boolean stopping;
+
+    public ImportJobServiceImpl(ImportJobRepository importJobRepository,
+                                ProductRequestValidator productRequestValidator,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher,
+                                ProductProperties productProperties) {
+        this.importJobRepository = importJobRepository;
+        this.productRequestValidator = productRequestValidator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = productProperties.getBulk().getImportChunkSize();
+
+        ProductProperties.ImportJobs settings = productProperties.getImportJobs();
+        this.writers = settings.getWriters();
+        this.spoolDir = settings.getSpoolDir() == null || settings.getSpoolDir().isBlank()
+                ? null : Path.of(settings.getSpoolDir());
+        this.leaseTimeout = settings.getLeaseTimeout();
+        this.jobExecutor = new ThreadPoolExecutor(settings.getMaxConcurrentJobs(), settings.getMaxConcurrentJobs(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(settings.getQueueCapacity()), threads("import-job-"));
+        this.writerExecutor = Executors.newFixedThreadPool(writers, threads("import-writer-"));
+        this.leaseKeeper = Executors.newSingleThreadScheduledExecutor(threads("import-job-lease-"));
+    }
+
+    @Override
+    public ImportJobResponse submitJob(InputStream in, ImportFormat format) {
+        if (spoolDir == null) {
+            throw new ConflictException("Background imports are disabled: product.import-jobs.spool-dir "
+                    + "(IMPORT_SPOOL_DIR) must name a directory that survives restarts");
+        }
+        UUID id = UUID.randomUUID();
+        Path spool = spoolDir.resolve(id + "." + format.name().toLowerCase(Locale.ROOT));
+        try {
+            Files.createDirectories(spoolDir);
+            Files.copy(in, spool);
+        } catch (IOException e) {
+            deleteSpool(spool.toString());
+            throw new BadRequestException("Could not read import stream: " + e.getMessage());
+        }
+
+        ImportJob job = ImportJob.builder()
+                .id(id)
+                .format(format)
+                .spoolPath(spool.toString())
+                .status(ImportJobStatus.QUEUED)
+                .createdAt(LocalDateTime.now())
+                .build();
+        importJobRepository.createJob(job, owner);
+        try {
+            enqueue(job);
+        } catch (RejectedExecutionException e) {
+            finish(job, ImportJobStatus.FAILED, "Import queue is full");
+            throw new ConflictException("Too many import jobs are queued, please retry later");
+        }
+        return toResponse(job, new ImportJobRepository.Progress(0, 0, 0));
+    }
+
+    @Override
+    public ImportJobResponse getJob(UUID id) {
+        ImportJob job = importJobRepository.getJob(id);
+        if (job == null) {
+            throw new NotFoundException("Import job with id: " + id + " not found");
+        }
+        return toResponse(job, importJobRepository.getProgress(id));
+    }
+
+    @Override
+    public ImportJobResponse cancelJob(UUID id) {
+        ImportJob job = importJobRepository.getJob(id);
+        if (job == null) {
+            throw new NotFoundException("Import job with id: " + id + " not found");
+        }
+        if (!importJobRepository.markFinished(id, ImportJobStatus.CANCELLED, null)) {
+            // finished first, possibly while this request was on its way
+            throw new ConflictException("Import job with id: " + id + " is already "
+                    + importJobRepository.getJob(id).getStatus());
+        }
+        JobHandle handle = activeJobs.get(id);
+        if (handle != null) {
+            // the job thread stops before its next row; chunks already handed to writers still commit
+            handle.cancelled = true;
+        } else {
+            // not queued in this process, so no job thread will remove it
+            deleteSpool(job.getSpoolPath());
+        }
+        return getJob(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        resumeJobs();
+        if (spoolDir != null) {
+            long period = Math.max(1, leaseTimeout.toMillis() / 3);
+            leaseKeeper.scheduleWithFixedDelay(this::keepLeases, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void keepLeases() {
+        try {
+            importJobRepository.renewLeases(owner);
+            // picks up the jobs of instances that died since
+            resumeJobs();
+        } catch (RuntimeException e) {
+            logger.warn("Could not renew import job leases", e);
+        }
+    }
+
+    /**
+     * Claims and queues the unfinished jobs no live instance owns, skipping those already running here.
+     */
+    public void resumeJobs() {
+        List<ImportJob> unfinished = importJobRepository.findUnfinishedJobs();
+        if (spoolDir == null) {
+            if (!unfinished.isEmpty()) {
+                logger.warn("{} unfinished import jobs are not resumed: product.import-jobs.spool-dir is not set",
+                        unfinished.size());
+            }
+            return;
+        }
+        for (ImportJob job : unfinished) {
+            if (activeJobs.containsKey(job.getId())
+                    || !importJobRepository.claimJob(job.getId(), owner, leaseTimeout)) {
+                continue;
+            }
+            if (!Files.exists(Path.of(job.getSpoolPath()))) {
+                finish(job, ImportJobStatus.FAILED, "Spooled input is no longer available");
+                continue;
+            }
+            try {
+                enqueue(job);
+                logger.info("Resuming import job {}", job.getId());
+            } catch (RejectedExecutionException e) {
+                // lets another instance, or this one on its next round, take it
+                importJobRepository.releaseJob(job.getId(), owner);
+                logger.warn("Import job {} not resumed, the job queue is full", job.getId());
+            }
+        }
+    }
+
+    private void enqueue(ImportJob job) {
+        JobHandle handle = new JobHandle();
+        activeJobs.put(job.getId(), handle);
+        try {
+            jobExecutor.execute(() -> run(job, handle));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(job.getId());
+            throw e;
+        }
+    }
+
+    private void run(ImportJob job, JobHandle handle) {
+        try {
+            if (handle.cancelled || !importJobRepository.markStarted(job.getId(), owner)) {
+                // cancelled while queued, or claimed by another instance after this one lost its lease
+                if (handle.cancelled || importJobRepository.getJob(job.getId()).getStatus().isFinished()) {
+                    deleteSpool(job.getSpoolPath());
+                }
+                return;
+            }
+            String error = writeChunks(job, handle);
+            if (error != null) {
+                finish(job, ImportJobStatus.FAILED, error);
+            } else {
+                finish(job, handle.cancelled ? ImportJobStatus.CANCELLED : ImportJobStatus.COMPLETED, null);
+            }
+        } catch (Exception e) {
+            if (stopping) {
+                // left RUNNING on purpose: resumeJobs picks it up after the restart
+                logger.info("Import job {} interrupted by shutdown", job.getId());
+                return;
+            }
+            logger.error("Import job {} failed", job.getId(), e);
+            finish(job, ImportJobStatus.FAILED, "Import failed: " + e.getMessage());
+        } finally {
+            activeJobs.remove(job.getId());
+        }
+    }
+
+    /**
+     * @return an error for input that became unreadable part way, after committing the rows before it
+     */
+    private String writeChunks(ImportJob job, JobHandle handle) throws Exception {
+        UUID id = job.getId();
+        Set<Integer> committed = importJobRepository.findCommittedChunks(id);
+        // bounds both the writers one job occupies and the chunks held in memory
+        Semaphore inFlight = new Semaphore(writers);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        List<Future<?>> writes = new ArrayList<>();
+
+        String error = null;
+        int chunk = 0;
+        int rowsInChunk = 0;
+        int rejected = 0;
+        List<Product> products = new ArrayList<>(chunkSize);
+        try (InputStream in = Files.newInputStream(Path.of(job.getSpoolPath()));
+             ProductRowReader reader = ProductRowReader.open(in, job.getFormat(), objectMapper)) {
+            ProductRowReader.Row row;
+            while (!handle.cancelled && failure.get() == null && (row = reader.next()) != null) {
+                if (!committed.contains(chunk)) {
+                    String rowError = row.error() != null ? row.error() : productRequestValidator.validateForCreate(row.request());
+                    if (rowError != null) {
+                        rejected++;
+                    } else {
+                        products.add(toProduct(row.request()));
+                    }
+                }
+                if (++rowsInChunk == chunkSize) {
+                    if (!committed.contains(chunk)) {
+                        submitChunk(id, chunk, products, rejected, inFlight, failure, writes);
+                    }
+                    chunk++;
+                    rowsInChunk = 0;
+                    rejected = 0;
+                    products = new ArrayList<>(chunkSize);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            error = "Malformed " + job.getFormat() + " input at line " + ProductRowReader.lineOf(e);
+        }
+
+        // the last, partial chunk; after malformed input it still holds the readable rows before it
+        if (rowsInChunk > 0 && !handle.cancelled && failure.get() == null && !committed.contains(chunk)) {
+            submitChunk(id, chunk, products, rejected, inFlight, failure, writes);
+        }
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (ExecutionException e) {
+                failure.compareAndSet(null, e.getCause() instanceof Exception cause ? cause : e);
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return error;
+    }
+
+    private void submitChunk(UUID jobId, int chunk, List<Product> products, int rejected, Semaphore inFlight,
+                             AtomicReference<Exception> failure, List<Future<?>> writes) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            writes.add(writerExecutor.submit(() -> {
+                try {
+                    importJobRepository.commitChunk(jobId, chunk, products, rejected);
+                    if (!products.isEmpty()) {
+                        eventPublisher.publishEvent(new ProductsCreatedEvent(products));
+                    }
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    throw e;
+                } finally {
+                    inFlight.release();
+                }
+                return null;
+            }));
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void finish(ImportJob job, ImportJobStatus status, String error) {
+        if (error != null && error.length() > 1000) {
+            error = error.substring(0, 1000);
+        }
+        if (!importJobRepository.markFinished(job.getId(), status, error)) {
+            logger.info("Import job {} was already finished, {} not recorded", job.getId(), status);
+        }
+        deleteSpool(job.getSpoolPath());
+    }
+
+    private static void deleteSpool(String spoolPath) {
+        try {
+            Files.deleteIfExists(Path.of(spoolPath));
+        } catch (IOException e) {
+            logger.warn("Could not delete import spool {}", spoolPath, e);
+        }
+    }
+
+    private static Product toProduct(ProductRequest request) {
+        return Product.builder()
+                .name(request.getName().trim())
+                .price(request.getPrice())
+                .quantity(request.getQuantity())
+                .build();
+    }
+
+    private static ImportJobResponse toResponse(ImportJob job, ImportJobRepository.Progress progress) {
+        long processed = progress.accepted() + progress.rejected();
+        Double rowsPerSecond = null;
+        if (job.getStartedAt() != null) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            long millis = Math.max(1, Duration.between(job.getStartedAt(), end).toMillis());
+            rowsPerSecond = processed * 1000.0 / millis;
+        }
+        return ImportJobResponse.builder()
+                .id(job.getId())
+                .format(job.getFormat())
+                .status(job.getStatus())
+                .chunksCommitted(progress.chunks())
+                .rowsProcessed(processed)
+                .rowsFailed(progress.rejected())
+                .rowsPerSecond(rowsPerSecond)
+                .error(job.getError())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopping = true;
+        leaseKeeper.shutdownNow();
+        jobExecutor.shutdownNow();
+        writerExecutor.shutdownNow();
+        jobExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        writerExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,85 @@
+package org.hrd.hibernatejpa01.service.implementation;
+
+import lombok.RequiredArgsConstructor;
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.event.ProductDeletedEvent;
+import org.hrd.hibernatejpa01.event.ProductsCreatedEvent;
+import org.hrd.hibernatejpa01.repository.ProductRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Produces the product total for paginated responses according to
+ * {@code product.pagination.count-strategy}, keeping the full-table count off the read path.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCountProvider {
+
+    private final ProductRepository productRepository;
+    private final ProductProperties productProperties;
+
+    private final AtomicReference<CachedCount> cached = new AtomicReference<>();
+    // bumped by every create/delete; a count is only served while the generation it was read under is current
+    private final AtomicLong generation = new AtomicLong();
+
+    private record CachedCount(int value, long expiresAt, long generation) {
+    }
+
+    /**
+     * @return the total number of products, or {@code null} when the strategy omits it
+     */
+    public Integer totalProducts() {
+        return switch (productProperties.getPagination().getCountStrategy()) {
+            case EXACT -> productRepository.countProducts();
+            case CACHED -> cachedCount();
+            case ESTIMATED -> estimatedCount();
+            case NONE -> null;
+        };
+    }
+
+    private int cachedCount() {
+        long now = System.nanoTime();
+        // read before counting: a write committing while the count runs makes this result unusable for others
+        long readGeneration = generation.get();
+        CachedCount current = cached.get();
+        if (current != null && current.generation() == readGeneration && now - current.expiresAt() < 0) {
+            return current.value();
+        }
+        int count = productRepository.countProducts();
+        CachedCount fresh = new CachedCount(count, now + productProperties.getPagination().getCountCacheTtl().toNanos(),
+                readGeneration);
+        if (generation.get() == readGeneration) {
+            cached.compareAndSet(current, fresh);
+        }
+        return count;
+    }
+
+    private int estimatedCount() {
+        long estimate = productRepository.estimateProductCount();
+        // the table has never been analyzed, nothing to estimate from yet
+        if (estimate < 0) {
+            return productRepository.countProducts();
+        }
+        return (int) Math.min(estimate, Integer.MAX_VALUE);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsCreated(ProductsCreatedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductDeleted(ProductDeletedEvent event) {
+        invalidate();
+    }
+
+    // the generation check on read also rejects a count installed by a reader that raced this invalidation
+    private void invalidate() {
+        generation.incrementAndGet();
+        cached.set(null);
+    }
+}
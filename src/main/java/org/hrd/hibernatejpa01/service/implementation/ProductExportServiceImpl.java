@@ -0,0 +1,70 @@
+package org.hrd.hibernatejpa01.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.RequiredArgsConstructor;
+import org.hrd.hibernatejpa01.model.dto.response.ProductResponse;
+import org.hrd.hibernatejpa01.model.enums.ImportFormat;
+import org.hrd.hibernatejpa01.repository.ProductRepository;
+import org.hrd.hibernatejpa01.service.ProductExportService;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+@Service
+@RequiredArgsConstructor
+public class ProductExportServiceImpl implements ProductExportService {
+
+    // rows written between two flushes, so the client sees data while the cursor is still open
+    private static final int FLUSH_EVERY = 1000;
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addColumn("id")
+            .addColumn("name")
+            .addColumn("price")
+            .addColumn("quantity")
+            .addColumn("version")
+            .setUseHeader(true)
+            .build();
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void exportProducts(OutputStream out, ImportFormat format) throws IOException {
+        ObjectWriter writer = switch (format) {
+            case NDJSON -> objectMapper.writerFor(ProductResponse.class).withRootValueSeparator("\n");
+            case CSV -> CSV_MAPPER.writerFor(ProductResponse.class).with(CSV_SCHEMA);
+        };
+        // only the current row is in memory: rows come off the cursor and go straight to the stream
+        long[] written = {0};
+        try (SequenceWriter rows = writer.writeValues(out)) {
+            try {
+                productRepository.scanProducts(product -> {
+                    try {
+                        rows.write(product);
+                        if (++written[0] % FLUSH_EVERY == 0) {
+                            rows.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // the client went away; closing the stream also closes the cursor
+                throw e.getCause();
+            }
+            // the separator only goes between rows, but NDJSON ends every line, the last one included
+            if (format == ImportFormat.NDJSON && written[0] > 0) {
+                rows.flush();
+                out.write('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.hrd.hibernatejpa01.service.implementation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.event.ProductsCreatedEvent;
+import org.hrd.hibernatejpa01.exception.BadRequestException;
+import org.hrd.hibernatejpa01.model.dto.response.ProductImportReport;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.model.enums.ImportFormat;
+import org.hrd.hibernatejpa01.repository.ProductRepository;
+import org.hrd.hibernatejpa01.service.ProductImportService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private final ProductRepository productRepository;
+    private final ProductRequestValidator productRequestValidator;
+    private final ProductProperties productProperties;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public ProductImportReport importProducts(InputStream in, ImportFormat format) {
+        ProductProperties.Bulk bulk = productProperties.getBulk();
+        int chunkSize = bulk.getImportChunkSize();
+        // counts and a bounded sample of rejections, so the report stays small however large the stream
+        ProductImportReport report = new ProductImportReport(bulk.getImportRejectedRows());
+        List<Product> products = new ArrayList<>(chunkSize);
+        int rowsInChunk = 0;
+
+        try (ProductRowReader reader = ProductRowReader.open(in, format, objectMapper)) {
+            ProductRowReader.Row row;
+            while ((row = reader.next()) != null) {
+                rowsInChunk++;
+
+                String error = row.error() != null ? row.error() : productRequestValidator.validateForCreate(row.request());
+                if (error != null) {
+                    report.reject(row.line(), error);
+                } else {
+                    products.add(Product.builder()
+                            .name(row.request().getName().trim())
+                            .price(row.request().getPrice())
+                            .quantity(row.request().getQuantity())
+                            .build());
+                }
+
+                if (rowsInChunk == chunkSize) {
+                    commitChunk(products, report);
+                    rowsInChunk = 0;
+                }
+            }
+        } catch (JsonProcessingException e) {
+            report.setError("Malformed " + format + " input at line " + ProductRowReader.lineOf(e));
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read import stream: " + e.getMessage());
+        }
+
+        // rows read before a malformed line are still committed
+        if (rowsInChunk > 0) {
+            commitChunk(products, report);
+        }
+        return report;
+    }
+
+    private void commitChunk(List<Product> products, ProductImportReport report) {
+        if (!products.isEmpty()) {
+            productRepository.createProducts(products); // one transaction per chunk
+            eventPublisher.publishEvent(new ProductsCreatedEvent(List.copyOf(products)));
+        }
+        report.addChunk(products.size());
+        products.clear();
+    }
+}
@@ -0,0 +1,153 @@
+package org.hrd.hibernatejpa01.service.implementation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.event.ProductDeletedEvent;
+import org.hrd.hibernatejpa01.event.ProductUpdatedEvent;
+import org.hrd.hibernatejpa01.event.ProductsCreatedEvent;
+import org.hrd.hibernatejpa01.model.dto.response.ProductResponse;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for the hottest reads: concurrent calls with the same arguments share the query of
+ * whichever call arrived first instead of each sending their own. Nothing is kept once that query
+ * returns. A call may still get a result read before it arrived: the shared query started earlier,
+ * so a change committed in between can be missing. Once a product change has been committed, its
+ * id and every search are forgotten, and calls from then on start a new query.
+ * <p>
+ * A caller waits at most {@code product.single-flight.max-wait} for the shared query, then runs its
+ * own. Calls are counted in {@code product.single-flight.calls} by outcome: {@code leader} ran the
+ * query, {@code shared} reused one, {@code timeout} gave up waiting.
+ */
+@Component
+public class ProductReadCoalescer {
+
+    private record SearchKey(String name, int limit) {
+    }
+
+    private final Group<Long, ProductResponse> byId;
+    private final Group<SearchKey, List<ProductResponse>> search;
+
+    public ProductReadCoalescer(ProductProperties productProperties, MeterRegistry meterRegistry) {
+        ProductProperties.SingleFlight settings = productProperties.getSingleFlight();
+        this.byId = new Group<>("product-by-id", settings, meterRegistry);
+        this.search = new Group<>("product-search", settings, meterRegistry);
+    }
+
+    /**
+     * @param loader returns the product, or null when it does not exist
+     */
+    public ProductResponse getProductById(Long id, Supplier<ProductResponse> loader) {
+        return byId.execute(id, loader);
+    }
+
+    public List<ProductResponse> findProductBySearchName(String name, int limit, Supplier<List<ProductResponse>> loader) {
+        return search.execute(new SearchKey(name, limit), () -> List.copyOf(loader.get()));
+    }
+
+    // callers arriving after the commit must not join a lookup that may have read the old row;
+    // any search can match a changed name, so all of them are forgotten
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsCreated(ProductsCreatedEvent event) {
+        for (Product product : event.products()) {
+            byId.forget(product.getId());
+        }
+        search.forgetAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductUpdated(ProductUpdatedEvent event) {
+        byId.forget(event.product().getId());
+        search.forgetAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductDeleted(ProductDeletedEvent event) {
+        byId.forget(event.id());
+        search.forgetAll();
+    }
+
+    private static final class Group<K, V> {
+
+        private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+        private final boolean enabled;
+        private final long maxWaitNanos;
+        private final Counter leaders;
+        private final Counter shared;
+        private final Counter timeouts;
+
+        Group(String operation, ProductProperties.SingleFlight settings, MeterRegistry meterRegistry) {
+            this.enabled = settings.isEnabled();
+            this.maxWaitNanos = settings.getMaxWait().toNanos();
+            this.leaders = counter(meterRegistry, operation, "leader");
+            this.shared = counter(meterRegistry, operation, "shared");
+            this.timeouts = counter(meterRegistry, operation, "timeout");
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String operation, String outcome) {
+            return Counter.builder("product.single-flight.calls")
+                    .description("Coalesced reads by whether they ran the query or shared another call's")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        V execute(K key, Supplier<V> loader) {
+            if (!enabled) {
+                return loader.get();
+            }
+            CompletableFuture<V> own = new CompletableFuture<>();
+            CompletableFuture<V> running = inFlight.putIfAbsent(key, own);
+            if (running == null) {
+                leaders.increment();
+                try {
+                    V value = loader.get();
+                    own.complete(value);
+                    return value;
+                } catch (RuntimeException | Error e) {
+                    own.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(key, own);
+                }
+            }
+            try {
+                V value = running.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+                shared.increment();
+                return value;
+            } catch (TimeoutException e) {
+                timeouts.increment();
+                return loader.get();
+            } catch (ExecutionException e) {
+                // the shared query failed; this caller reports the same failure
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw (Error) e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a shared product read", e);
+            }
+        }
+
+        // the forgotten query still completes for the callers already waiting on it
+        void forget(K key) {
+            inFlight.remove(key);
+        }
+
+        void forgetAll() {
+            inFlight.clear();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.hrd.hibernatejpa01.service.implementation;
+
+import org.hrd.hibernatejpa01.model.dto.request.ProductPatchRequest;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validation rules shared by every path that creates or changes products.
+ */
+@Component
+public class ProductRequestValidator {
+
+    /**
+     * @return the error message for an invalid request, or {@code null} when it can be inserted
+     */
+    public String validateForCreate(ProductRequest request) {
+        if (request.getQuantity() == null || request.getQuantity() <= 0 || request.getQuantity() > 100001) {
+            return "Invalid quantity for product: " + request.getName();
+        } else if (request.getName() == null || request.getName().isEmpty()
+                || request.getName().trim().length() > 100) {
+            return "Invalid name for one of the products";
+        } else if (request.getPrice() == null || request.getPrice() <= 0) {
+            return "Invalid price for product: " + request.getName();
+        }
+        return null;
+    }
+
+    /**
+     * @return the error message for an invalid bulk update row, or {@code null} when it can be applied
+     */
+    public String validateForPatch(ProductPatchRequest request) {
+        if (request.getId() == null) {
+            return "Product id is required";
+        } else if (request.getName() == null && request.getPrice() == null && request.getQuantity() == null) {
+            return "Nothing to update for product with id: " + request.getId();
+        } else if (request.getName() != null && (request.getName().trim().isEmpty()
+                || request.getName().trim().length() > 100)) {
+            return "Invalid name for product with id: " + request.getId();
+        } else if (request.getPrice() != null && request.getPrice() <= 0) {
+            return "Invalid price for product with id: " + request.getId();
+        } else if (request.getQuantity() != null && (request.getQuantity() <= 0 || request.getQuantity() > 100001)) {
+            return "Invalid quantity for product with id: " + request.getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+package org.hrd.hibernatejpa01.service.implementation;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.enums.ImportFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads {@link ProductRequest} rows one at a time from an NDJSON or CSV stream.
+ * Only the current row is ever materialised, so memory does not depend on the input size.
+ */
+public class ProductRowReader implements Closeable {
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    public record Row(int line, ProductRequest request, String error) {
+    }
+
+    private final MappingIterator<ProductRequest> rows;
+
+    private ProductRowReader(MappingIterator<ProductRequest> rows) {
+        this.rows = rows;
+    }
+
+    public static ProductRowReader open(InputStream in, ImportFormat format, ObjectMapper objectMapper) throws IOException {
+        MappingIterator<ProductRequest> rows = switch (format) {
+            case NDJSON -> objectMapper.readerFor(ProductRequest.class).readValues(in);
+            case CSV -> CSV_MAPPER.readerFor(ProductRequest.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(in);
+        };
+        return new ProductRowReader(rows);
+    }
+
+    /**
+     * @return the next row, or {@code null} at the end of the stream. A row that cannot be bound
+     * to {@link ProductRequest} is returned with an error instead of a request.
+     * @throws JsonProcessingException when the stream itself is malformed and reading cannot continue
+     */
+    public Row next() throws IOException {
+        if (!rows.hasNextValue()) {
+            return null;
+        }
+        int line = rows.getParser().currentTokenLocation().getLineNr();
+        try {
+            return new Row(line, rows.nextValue(), null);
+        } catch (JsonProcessingException e) {
+            // the iterator re-syncs to the next row on the following hasNextValue()
+            return new Row(line, null, "Unreadable row: " + e.getOriginalMessage());
+        }
+    }
+
+    public static int lineOf(JsonProcessingException e) {
+        JsonLocation location = e.getLocation();
+        return location == null ? -1 : location.getLineNr();
+    }
+
+    @Override
+    public void close() throws IOException {
+        rows.close();
+    }
+}
@@ -1,24 +1,60 @@
 package org.hrd.hibernatejpa01.service.implementation;
 
 import lombok.RequiredArgsConstructor;
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.event.ProductDeletedEvent;
+import org.hrd.hibernatejpa01.event.ProductUpdatedEvent;
+import org.hrd.hibernatejpa01.event.ProductsCreatedEvent;
 import org.hrd.hibernatejpa01.exception.BadRequestException;
+import org.hrd.hibernatejpa01.exception.ConflictException;
 import org.hrd.hibernatejpa01.exception.NotFoundException;
+import org.hrd.hibernatejpa01.model.dto.request.ProductPatchRequest;
 import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.dto.response.BulkProductReport;
+import org.hrd.hibernatejpa01.model.dto.response.LowStockPageResponse;
+import org.hrd.hibernatejpa01.model.dto.response.LowStockProduct;
 import org.hrd.hibernatejpa01.model.dto.response.PaginationResponse;
 import org.hrd.hibernatejpa01.model.dto.response.ProductPageResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductSuggestion;
+import org.hrd.hibernatejpa01.model.dto.response.RejectedRow;
 import org.hrd.hibernatejpa01.model.entity.Product;
 import org.hrd.hibernatejpa01.repository.ProductRepository;
+import org.hrd.hibernatejpa01.search.ProductNameIndex;
 import org.hrd.hibernatejpa01.service.ProductService;
+import org.hrd.hibernatejpa01.stock.StockWriteBehindBuffer;
+import org.hrd.hibernatejpa01.util.CursorCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductServiceImpl.class);
+
     private final ProductRepository productRepository;
+    private final ProductRequestValidator productRequestValidator;
+    private final ProductCountProvider productCountProvider;
+    private final ProductProperties productProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<ProductNameIndex> productNameIndex;
+    private final ProductReadCoalescer productReadCoalescer;
+    private final ObjectProvider<StockWriteBehindBuffer> writeBehindBuffer;
 
     @Override
     public List<Product> createProducts(List<ProductRequest> requests) {
@@ -26,59 +62,189 @@ public class ProductServiceImpl implements ProductService {
             throw new BadRequestException("Product list cannot be empty");
         }
 
-        List<Product> products = new ArrayList<>();
+        List<Product> products = new ArrayList<>(requests.size());
 
+        // validate everything up front so a bad row never leaves a partial import behind
         for (ProductRequest request : requests) {
-            if (request.getQuantity() <= 0 || request.getQuantity() > 100001) {
-                throw new BadRequestException("Invalid quantity for product: " + request.getName());
-            } else if (request.getName() == null || request.getName().isEmpty()) {
-                throw new BadRequestException("Invalid name for one of the products");
-            } else if (request.getPrice() == null || request.getPrice() <= 0) {
-                throw new BadRequestException("Invalid price for product: " + request.getName());
+            String error = productRequestValidator.validateForCreate(request);
+            if (error != null) {
+                throw new BadRequestException(error);
             }
 
-            Product product = Product.builder()
+            products.add(Product.builder()
                     .name(request.getName().trim())
                     .price(request.getPrice())
                     .quantity(request.getQuantity())
-                    .build();
-
-            productRepository.createProducts(product); // Save individually
-            products.add(product);
+                    .build());
         }
 
+        productRepository.createProducts(products); // Save in JDBC batches
+        eventPublisher.publishEvent(new ProductsCreatedEvent(products));
+
         return products;
     }
 
 
     @Override
-    public Product updateProduct(Long id, ProductRequest request) {
-        if (productRepository.getProductById(id) == null) {
-            throw new NotFoundException("Product with id: " + id + " not found");
-        } else if (request.getName() == null || request.getName().isEmpty()) {
+    @Transactional
+    public Product updateProduct(Long id, ProductRequest request, Long expectedVersion) {
+        if (request.getName() == null || request.getName().isEmpty()) {
             throw new BadRequestException("Please enter a valid product name");
         } else if (request.getPrice() == null || request.getPrice() <= 0) {
             throw new BadRequestException("Please enter a valid product price or greater than 0");
-        } else if (request.getQuantity() <= 0) {
+        } else if (request.getQuantity() == null || request.getQuantity() <= 0) {
             throw new BadRequestException("Please enter a valid product quantity or greater than 0");
         } else if (request.getQuantity() > 100001) {
             throw new BadRequestException("Please enter a valid product quantity less than 100001");
         }
-        return productRepository.updateProduct(id, request);
+        // one lookup, served by the second-level cache, both checks existence and captures the old stock
+        Product product = productRepository.getProductById(id);
+        if (product == null) {
+            throw new NotFoundException("Product with id: " + id + " not found");
+        }
+        // @Version only guards this transaction's own read-modify-write; the client's version guards theirs
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new ConflictException("Product with id: " + id + " is at version " + product.getVersion()
+                    + ", not " + expectedVersion + "; reload it and retry");
+        }
+        Integer previousQuantity = product.getQuantity();
+        StockWriteBehindBuffer buffer = writeBehindBuffer.getIfAvailable();
+        if (buffer == null) {
+            productRepository.updateProduct(product, request);
+        } else {
+            // the row keeps its flushed quantity; the new one is buffered as a delta
+            productRepository.updateProductDetails(product, request);
+            previousQuantity = setBufferedQuantity(buffer, id, request.getQuantity());
+            product.setQuantity(request.getQuantity());
+        }
+        eventPublisher.publishEvent(new ProductUpdatedEvent(product, previousQuantity));
+        return product;
+    }
+
+    // the buffered quantity before the change; the change is given back if the transaction does not commit
+    private int setBufferedQuantity(StockWriteBehindBuffer buffer, Long id, int quantity) {
+        long previous = buffer.setQuantity(id, quantity);
+        int delta = (int) (quantity - previous);
+        if (delta != 0) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        return;
+                    }
+                    try {
+                        buffer.adjust(id, -delta, Integer.MAX_VALUE);
+                    } catch (RuntimeException e) {
+                        logger.error("Could not undo the buffered quantity of product {} after a failed update", id, e);
+                    }
+                }
+            });
+        }
+        return (int) previous;
     }
 
     @Override
     public void deleteProduct(Long id) {
-        Product product = productRepository.getProductById(id);
-        if (product == null) {
+        if (!productRepository.deleteProduct(id)) {
             throw new NotFoundException("Product with id: " + id + " not found");
         }
-        productRepository.deleteProduct(id);
+        eventPublisher.publishEvent(new ProductDeletedEvent(id));
     }
 
     @Override
-    public Product getProductById(Long id) {
-        Product product = productRepository.getProductById(id);
+    @Transactional
+    public BulkProductReport updateProducts(List<ProductPatchRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BadRequestException("Product list cannot be empty");
+        }
+        BulkProductReport report = new BulkProductReport();
+        report.setRequested(requests.size());
+
+        // invalid rows are reported and skipped; a repeated id keeps its last patch
+        Map<Long, ProductPatchRequest> patches = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ProductPatchRequest request = requests.get(i);
+            String error = productRequestValidator.validateForPatch(request);
+            if (error != null) {
+                report.getRejected().add(new RejectedRow(i + 1, error));
+                continue;
+            }
+            if (request.getName() != null) {
+                request.setName(request.getName().trim());
+            }
+            patches.put(request.getId(), request);
+        }
+        if (patches.isEmpty()) {
+            return report;
+        }
+
+        // with the write-behind buffer the rows keep their flushed quantity; new ones are buffered as deltas
+        StockWriteBehindBuffer buffer = writeBehindBuffer.getIfAvailable();
+        Map<Long, Integer> bufferedQuantities = new HashMap<>();
+        if (buffer != null) {
+            for (ProductPatchRequest patch : patches.values()) {
+                if (patch.getQuantity() != null) {
+                    bufferedQuantities.put(patch.getId(), patch.getQuantity());
+                    patch.setQuantity(null);
+                }
+            }
+        }
+
+        Set<Long> missing = new LinkedHashSet<>(patches.keySet());
+        for (ProductRepository.UpdatedProduct change : productRepository.updateProducts(new ArrayList<>(patches.values()))) {
+            Product product = change.product();
+            missing.remove(product.getId());
+            Integer previousQuantity = change.previousQuantity();
+            Integer quantity = bufferedQuantities.get(product.getId());
+            if (quantity != null) {
+                previousQuantity = setBufferedQuantity(buffer, product.getId(), quantity);
+                product.setQuantity(quantity);
+            }
+            eventPublisher.publishEvent(new ProductUpdatedEvent(product, previousQuantity));
+        }
+        report.setApplied(patches.size() - missing.size());
+        report.getNotFound().addAll(missing);
+        return report;
+    }
+
+    @Override
+    @Transactional
+    public BulkProductReport deleteProducts(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("Product id list cannot be empty");
+        }
+        BulkProductReport report = new BulkProductReport();
+        report.setRequested(ids.size());
+
+        Set<Long> distinct = new LinkedHashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == null) {
+                report.getRejected().add(new RejectedRow(i + 1, "Product id is required"));
+            } else {
+                distinct.add(ids.get(i));
+            }
+        }
+        if (distinct.isEmpty()) {
+            return report;
+        }
+
+        Set<Long> missing = new LinkedHashSet<>(distinct);
+        for (Long id : productRepository.deleteProducts(new ArrayList<>(distinct))) {
+            missing.remove(id);
+            eventPublisher.publishEvent(new ProductDeletedEvent(id));
+        }
+        report.setApplied(distinct.size() - missing.size());
+        report.getNotFound().addAll(missing);
+        return report;
+    }
+
+    @Override
+    public ProductResponse getProductById(Long id) {
+        // entity lookup so the second-level cache still serves it; only the DTO leaves the service
+        ProductResponse product = productReadCoalescer.getProductById(id, () -> {
+            Product found = productRepository.getProductById(id);
+            return found == null ? null : ProductResponse.from(found);
+        });
         if (product == null) {
             throw new NotFoundException("Product with id: " + id + " not found");
         }
@@ -86,35 +252,119 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ProductPageResponse getAllProducts(Integer page, Integer size) {
         if (page == null || page < 1) page = 1;
         if (size == null || size < 1) size = 10;
 
-        int totalCount = productRepository.countProducts();
-        List<Product> products = productRepository.getAllProducts(page, size);
+        Integer totalCount = productCountProvider.totalProducts();
+        // one extra row tells whether another page follows, whatever the count strategy
+        List<ProductResponse> products = productRepository.getAllProducts((page - 1) * size, size + 1);
+
+        if (products.isEmpty()) {
+            throw new NotFoundException("No products found");
+        }
+
+        boolean hasNext = products.size() > size;
+        if (hasNext) {
+            products = products.subList(0, size);
+        }
+
+        PaginationResponse pagination = totalCount == null
+                ? new PaginationResponse(null, page, size, null, null, hasNext)
+                : new PaginationResponse(totalCount, page, size);
+        if (hasNext) {
+            pagination.setHasNext(true);
+            pagination.setNextCursor(CursorCodec.encode(products.get(size - 1).getId()));
+        }
+
+        return new ProductPageResponse(products, pagination);
+    }
+
+    @Override
+    public ProductPageResponse getProductsAfter(String cursor, Integer size) {
+        if (size == null || size < 1) size = 10;
+
+        long lastId = CursorCodec.decode(cursor, 1)[0];
+        // one extra row tells whether another page follows without counting the table
+        List<ProductResponse> products = productRepository.getProductsAfter(lastId, size + 1);
 
         if (products.isEmpty()) {
             throw new NotFoundException("No products found");
         }
 
-        PaginationResponse pagination = new PaginationResponse(totalCount, page, size);
+        boolean hasNext = products.size() > size;
+        String nextCursor = null;
+        if (hasNext) {
+            products = products.subList(0, size);
+            nextCursor = CursorCodec.encode(products.get(size - 1).getId());
+        }
+
+        PaginationResponse pagination = new PaginationResponse(null, null, size, null, nextCursor, hasNext);
 
         return new ProductPageResponse(products, pagination);
     }
 
     @Override
-    public List<Product> findProductBySearchName(String name) {
+    public List<ProductResponse> findProductBySearchName(String name, Integer limit) {
         if (name == null || name.isEmpty()) {
             throw new NotFoundException("No products found");
         }
-        return productRepository.findProductBySearchName(name);
+        int resolvedLimit = resolveLimit(limit);
+        return productReadCoalescer.findProductBySearchName(name, resolvedLimit,
+                () -> productRepository.findProductBySearchName(name, resolvedLimit));
     }
 
     @Override
-    public List<Product> getLowStockProducts(Integer quantity) {
+    public List<ProductSuggestion> typeahead(String prefix, Integer limit) {
+        if (prefix == null || prefix.isEmpty()) {
+            throw new BadRequestException("Please enter a prefix to search for");
+        }
+        ProductNameIndex index = productNameIndex.getIfAvailable();
+        if (index != null && index.isReady()) {
+            return index.suggest(prefix, resolveLimit(limit));
+        }
+        return productRepository.findProductSuggestions(prefix, resolveLimit(limit));
+    }
+
+    private int resolveLimit(Integer limit) {
+        ProductProperties.Search search = productProperties.getSearch();
+        if (limit == null || limit < 1) {
+            return search.getDefaultLimit();
+        }
+        return Math.min(limit, search.getMaxLimit());
+    }
+
+    @Override
+    public LowStockPageResponse getLowStockProducts(Integer quantity, Integer size, String after) {
         if (quantity == null || quantity <= 0) {
             throw new NotFoundException("Please enter a valid quantity greater than 0");
         }
-        return productRepository.getLowStockProducts(quantity);
+        ProductProperties.LowStock lowStock = productProperties.getLowStock();
+        if (size == null || size < 1) size = lowStock.getDefaultSize();
+        size = Math.min(size, lowStock.getMaxSize());
+
+        // first page starts below every (quantity, id); quantities are never negative
+        int lastQuantity = -1;
+        long lastId = 0;
+        if (after != null) {
+            long[] keys = CursorCodec.decode(after, 2);
+            lastQuantity = (int) keys[0];
+            lastId = keys[1];
+        }
+
+        List<LowStockProduct> products = productRepository.getLowStockProducts(quantity, lastQuantity, lastId, size + 1);
+
+        boolean hasNext = products.size() > size;
+        String nextCursor = null;
+        if (hasNext) {
+            products = products.subList(0, size);
+            LowStockProduct last = products.get(size - 1);
+            nextCursor = CursorCodec.encode(last.getQuantity(), last.getId());
+        }
+
+        PaginationResponse pagination = new PaginationResponse(null, null, size, null, nextCursor, hasNext);
+
+        return new LowStockPageResponse(products, pagination);
     }
 }
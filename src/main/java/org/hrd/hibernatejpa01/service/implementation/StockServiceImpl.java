@@ -0,0 +1,119 @@
+package org.hrd.hibernatejpa01.service.implementation;
+
+import lombok.RequiredArgsConstructor;
+import org.hrd.hibernatejpa01.event.ProductUpdatedEvent;
+import org.hrd.hibernatejpa01.exception.BadRequestException;
+import org.hrd.hibernatejpa01.exception.ConflictException;
+import org.hrd.hibernatejpa01.exception.NotFoundException;
+import org.hrd.hibernatejpa01.model.dto.request.StockAdjustmentRequest;
+import org.hrd.hibernatejpa01.model.dto.response.StockLevelResponse;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.repository.ProductRepository;
+import org.hrd.hibernatejpa01.service.StockService;
+import org.hrd.hibernatejpa01.stock.StockWriteBehindBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class StockServiceImpl implements StockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockServiceImpl.class);
+
+    private static final int MAX_QUANTITY = 100001;
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<StockWriteBehindBuffer> writeBehindBuffer;
+
+    @Override
+    @Transactional
+    public StockLevelResponse increaseStock(Long id, Integer quantity) {
+        return adjust(id, requirePositive(quantity), null);
+    }
+
+    @Override
+    @Transactional
+    public StockLevelResponse decreaseStock(Long id, Integer quantity) {
+        return adjust(id, -requirePositive(quantity), null);
+    }
+
+    @Override
+    @Transactional
+    public List<StockLevelResponse> decreaseStock(List<StockAdjustmentRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BadRequestException("Stock adjustment list cannot be empty");
+        }
+        // a fixed lock order keeps two checkouts touching the same products from deadlocking
+        List<StockAdjustmentRequest> ordered = new ArrayList<>(requests);
+        ordered.sort(Comparator.comparing(StockAdjustmentRequest::getProductId,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        List<StockLevelResponse> levels = new ArrayList<>(ordered.size());
+        List<StockAdjustmentRequest> buffered = new ArrayList<>();
+        try {
+            for (StockAdjustmentRequest request : ordered) {
+                if (request.getProductId() == null) {
+                    throw new BadRequestException("Product id is required for every stock adjustment");
+                }
+                // any failure rolls back the decrements already applied in this checkout
+                levels.add(adjust(request.getProductId(), -requirePositive(request.getQuantity()), buffered));
+            }
+        } catch (RuntimeException e) {
+            // the transaction only undoes database writes; buffered decrements are given back here
+            StockWriteBehindBuffer buffer = writeBehindBuffer.getIfAvailable();
+            for (StockAdjustmentRequest request : buffered) {
+                try {
+                    buffer.adjust(request.getProductId(), request.getQuantity(), Integer.MAX_VALUE);
+                } catch (RuntimeException giveBackFailure) {
+                    // the give-back already flushed and retried; report it with the checkout failure, not instead of it
+                    logger.error("Could not give back {} units of product {} after a failed checkout",
+                            request.getQuantity(), request.getProductId(), giveBackFailure);
+                    e.addSuppressed(giveBackFailure);
+                }
+            }
+            throw e;
+        }
+        return levels;
+    }
+
+    // buffered collects the decrements taken from the write-behind buffer, when the caller may need to undo them
+    private StockLevelResponse adjust(Long id, int delta, List<StockAdjustmentRequest> buffered) {
+        StockWriteBehindBuffer buffer = writeBehindBuffer.getIfAvailable();
+        if (buffer != null) {
+            // never bypassed while enabled: the database quantity does not include the unflushed deltas
+            long available = buffer.adjust(id, delta, MAX_QUANTITY);
+            if (buffered != null) {
+                buffered.add(new StockAdjustmentRequest(id, -delta));
+            }
+            return new StockLevelResponse(id, (int) available);
+        }
+        Product product = productRepository.adjustStock(id, delta, MAX_QUANTITY);
+        if (product == null) {
+            // only the failure path pays for telling the two causes apart
+            if (productRepository.getProductById(id) == null) {
+                throw new NotFoundException("Product with id: " + id + " not found");
+            }
+            throw new ConflictException(delta < 0
+                    ? "Insufficient stock for product with id: " + id
+                    : "Stock for product with id: " + id + " cannot exceed " + MAX_QUANTITY);
+        }
+        eventPublisher.publishEvent(new ProductUpdatedEvent(product, product.getQuantity() - delta));
+        return new StockLevelResponse(product.getId(), product.getQuantity());
+    }
+
+    private static int requirePositive(Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new BadRequestException("Please enter a valid quantity greater than 0");
+        }
+        return quantity;
+    }
+}
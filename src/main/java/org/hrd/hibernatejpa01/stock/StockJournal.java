@@ -0,0 +1,151 @@
+package org.hrd.hibernatejpa01.stock;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Memory-mapped append log of stock deltas that have been acknowledged but not yet written to
+ * PostgreSQL. Mapped pages belong to the OS page cache, so appended records survive a crash of
+ * the JVM and are replayed on the next start. They only reach the disk when the OS writes them
+ * back or {@link #force} is called: an OS or host crash loses the records appended since.
+ * <p>
+ * Two fixed-size segment files alternate: the active one takes appends for the current epoch,
+ * the other holds the sealed epoch while it is being flushed. Each record carries a marker derived
+ * from its epoch, so leftovers of older epochs are never mistaken for live records and segments
+ * can be reused without being zeroed.
+ * <p>
+ * {@link #append} may be called concurrently; {@link #rotate} and {@link #release} must be
+ * serialized with appends by the caller.
+ */
+final class StockJournal implements Closeable {
+
+    private static final int MAGIC = 0x53544A31;   // "STJ1"
+    private static final int HEADER = 16;          // magic, reserved, epoch (0 = empty)
+    private static final int RECORD = 16;          // product id, delta, marker
+
+    record Segment(long epoch, Map<Long, Long> deltas) {
+    }
+
+    private final FileChannel[] channels = new FileChannel[2];
+    private final MappedByteBuffer[] segments = new MappedByteBuffer[2];
+    private final int limit;
+    private final AtomicInteger position = new AtomicInteger(HEADER);
+    private volatile long epoch;
+
+    StockJournal(Path directory, int capacity) throws IOException {
+        Files.createDirectories(directory);
+        this.limit = HEADER + capacity * RECORD;
+        for (int i = 0; i < 2; i++) {
+            channels[i] = FileChannel.open(directory.resolve("stock-journal-" + i + ".dat"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segments[i] = channels[i].map(FileChannel.MapMode.READ_WRITE, 0, limit);
+        }
+    }
+
+    /**
+     * @return the deltas left behind by a previous process, per epoch, oldest first
+     */
+    List<Segment> recover() {
+        List<Segment> recovered = new ArrayList<>();
+        for (MappedByteBuffer segment : segments) {
+            long segmentEpoch = segment.getLong(8);
+            if (segment.getInt(0) != MAGIC || segmentEpoch == 0) {
+                continue;
+            }
+            int marker = marker(segmentEpoch);
+            Map<Long, Long> deltas = new HashMap<>();
+            // a writer may have died between reserving and completing its slot, so scan every slot
+            for (int offset = HEADER; offset + RECORD <= limit; offset += RECORD) {
+                if (segment.getInt(offset + 12) == marker) {
+                    deltas.merge(segment.getLong(offset), (long) segment.getInt(offset + 8), Long::sum);
+                }
+            }
+            recovered.add(new Segment(segmentEpoch, deltas));
+        }
+        recovered.sort(Comparator.comparingLong(Segment::epoch));
+        return recovered;
+    }
+
+    /** Empties both segments and starts appending to {@code firstEpoch}. */
+    void start(long firstEpoch) {
+        for (MappedByteBuffer segment : segments) {
+            segment.putLong(8, 0L);
+        }
+        activate(firstEpoch);
+    }
+
+    /**
+     * @return false when the active segment is full
+     */
+    boolean append(long productId, int delta) {
+        int offset = position.getAndAdd(RECORD);
+        if (offset + RECORD > limit) {
+            return false;
+        }
+        long currentEpoch = epoch;
+        MappedByteBuffer segment = segments[(int) (currentEpoch & 1)];
+        segment.putLong(offset, productId);
+        segment.putInt(offset + 8, delta);
+        // written last: the record only counts once it is complete
+        segment.putInt(offset + 12, marker(currentEpoch));
+        return true;
+    }
+
+    boolean hasRecords() {
+        return position.get() > HEADER;
+    }
+
+    /**
+     * Seals the active epoch and starts the next one in the other segment, which must have been released.
+     *
+     * @return the sealed epoch
+     */
+    long rotate() {
+        long sealed = epoch;
+        activate(sealed + 1);
+        return sealed;
+    }
+
+    /** Marks a sealed epoch as applied to the database; its segment becomes reusable. */
+    void release(long sealedEpoch) {
+        segments[(int) (sealedEpoch & 1)].putLong(8, 0L);
+    }
+
+    private void activate(long newEpoch) {
+        MappedByteBuffer segment = segments[(int) (newEpoch & 1)];
+        segment.putInt(0, MAGIC);
+        segment.putLong(8, newEpoch);
+        position.set(HEADER);
+        epoch = newEpoch;
+    }
+
+    private static int marker(long epoch) {
+        return (int) (epoch & 0x7fffffff) | 0x80000000;
+    }
+
+    /** Writes both segments to the storage device; appends may continue meanwhile. */
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        for (FileChannel channel : channels) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package org.hrd.hibernatejpa01.stock;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.event.ProductDeletedEvent;
+import org.hrd.hibernatejpa01.event.ProductUpdatedEvent;
+import org.hrd.hibernatejpa01.exception.ConflictException;
+import org.hrd.hibernatejpa01.exception.NotFoundException;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.repository.ProductRepository;
+import org.hrd.hibernatejpa01.repository.StockJournalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Write-behind buffer for stock adjustments on hot products.
+ * <p>
+ * An adjustment is checked and applied against an in-memory quantity per product, appended to the
+ * {@link StockJournal} and acknowledged; nothing touches the database on the request path. A single
+ * flusher thread periodically seals the journal epoch, sums the pending deltas per product and writes
+ * them with one UPDATE per product, together with the epoch checkpoint, in one transaction. However
+ * many requests hit a product between two flushes, its row is locked and written once.
+ * <p>
+ * Journal segments still holding an epoch newer than the checkpoint are replayed on startup, so the
+ * journal directory must survive restarts. Changes made to a product outside the buffer mark it stale;
+ * its quantity is reloaded after the next flush.
+ * <p>
+ * While enabled, every adjustment goes through the buffer: the database quantity alone does not
+ * include the unflushed deltas, so checking bounds against it could oversell. That includes
+ * overwrites of the quantity, which are buffered as the delta to the new value. A full journal is
+ * flushed synchronously and the adjustment retried.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.stock.write-behind", name = "enabled", havingValue = "true")
+public class StockWriteBehindBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockWriteBehindBuffer.class);
+
+    // synchronous flushes a request triggers on a full journal before it gives up
+    private static final int FULL_JOURNAL_FLUSHES = 2;
+    private static final long FLUSH_WAIT_SECONDS = 10;
+
+    private static final class SkuCounter {
+        final AtomicLong available;                     // database quantity plus unflushed deltas
+        final LongAdder pending = new LongAdder();      // unflushed deltas
+        volatile boolean stale;
+
+        SkuCounter(long available) {
+            this.available = new AtomicLong(available);
+        }
+    }
+
+    private record PendingFlush(long epoch, Map<Long, Long> deltas) {
+    }
+
+    private final ProductRepository productRepository;
+    private final StockJournalRepository stockJournalRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductProperties.WriteBehind settings;
+
+    // adjustments share the read lock; the flusher takes the write lock to seal an epoch
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, SkuCounter> counters = new ConcurrentHashMap<>();
+    private StockJournal journal;
+    private ScheduledExecutorService flusher;
+    private volatile Thread flushThread;
+    private PendingFlush pendingFlush;   // sealed epoch not committed yet, retried first
+
+    public StockWriteBehindBuffer(ProductRepository productRepository,
+                                  StockJournalRepository stockJournalRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  ProductProperties productProperties) {
+        this.productRepository = productRepository;
+        this.stockJournalRepository = stockJournalRepository;
+        this.eventPublisher = eventPublisher;
+        this.settings = productProperties.getStock().getWriteBehind();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (settings.getJournalDir() == null || settings.getJournalDir().isBlank()) {
+            throw new IllegalStateException("product.stock.write-behind.journal-dir (STOCK_JOURNAL_DIR) must name a "
+                    + "directory that survives restarts, such as a mounted volume: acknowledged adjustments live "
+                    + "only there until they are flushed");
+        }
+        journal = new StockJournal(Path.of(settings.getJournalDir()), settings.getJournalCapacity());
+        long lastEpoch = stockJournalRepository.getCheckpoint();
+        for (StockJournal.Segment segment : journal.recover()) {
+            logger.warn("Replaying stock journal epoch {} ({} products)", segment.epoch(), segment.deltas().size());
+            publishChanges(stockJournalRepository.applyEpoch(segment.epoch(), segment.deltas()), segment.deltas());
+            lastEpoch = Math.max(lastEpoch, segment.epoch());
+        }
+        journal.start(lastEpoch + 1);
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        long syncInterval = settings.getJournalSyncInterval().toMillis();
+        if (syncInterval > 0) {
+            flusher.scheduleWithFixedDelay(journal::force, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Adds {@code delta} (negative to take stock) to the buffered quantity of a product.
+     *
+     * @return the quantity after the change
+     * @throws ConflictException when the change would leave the bounds, or the journal is full and
+     * cannot be flushed right now
+     */
+    public long adjust(Long productId, int delta, int maxQuantity) {
+        return update(productId, current -> current + delta, maxQuantity) + delta;
+    }
+
+    /**
+     * Sets the buffered quantity of a product, as the delta from what is buffered now. Writing the
+     * quantity to the row instead would let the flush add the pending deltas on top of it.
+     *
+     * @return the quantity before the change
+     */
+    public long setQuantity(Long productId, int quantity) {
+        return update(productId, current -> quantity, quantity);
+    }
+
+    // the quantity before the change
+    private long update(Long productId, LongUnaryOperator change, int maxQuantity) {
+        for (int flushes = 0; ; flushes++) {
+            OptionalLong previous = tryUpdate(productId, change, maxQuantity);
+            if (previous.isPresent()) {
+                return previous.getAsLong();
+            }
+            if (flushes == FULL_JOURNAL_FLUSHES) {
+                throw new ConflictException("Stock updates are backed up, please retry product with id: " + productId);
+            }
+            flushNow();
+        }
+    }
+
+    // runs a flush on the flusher thread, outside the caller's transaction and read lock, and waits for it
+    private void flushNow() {
+        try {
+            flusher.submit(this::flush).get(FLUSH_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Synchronous stock write-behind flush for a full journal failed", e);
+            throw new ConflictException("Stock updates cannot be written right now, please retry");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for stock updates to be written");
+        }
+    }
+
+    // the quantity before the change, or empty when the active journal segment is full; the counter
+    // is left unchanged then
+    private OptionalLong tryUpdate(Long productId, LongUnaryOperator change, int maxQuantity) {
+        // read outside the lock and the map: a slow query must not hold up the flusher or other products
+        SkuCounter loaded = counters.containsKey(productId) ? null : load(productId);
+        lock.readLock().lock();
+        try {
+            // looked up again under the lock, which keeps the flusher from removing it while in use
+            SkuCounter counter = counters.get(productId);
+            if (counter == null) {
+                if (loaded == null) {
+                    // removed by the flusher in between, after the product was deleted
+                    throw new NotFoundException("Product with id: " + productId + " not found");
+                }
+                counter = Objects.requireNonNullElse(counters.putIfAbsent(productId, loaded), loaded);
+            }
+            long current;
+            long next;
+            do {
+                current = counter.available.get();
+                next = change.applyAsLong(current);
+                if (next < 0) {
+                    throw new ConflictException("Insufficient stock for product with id: " + productId);
+                }
+                if (next > maxQuantity) {
+                    throw new ConflictException("Stock for product with id: " + productId
+                            + " cannot exceed " + maxQuantity);
+                }
+            } while (!counter.available.compareAndSet(current, next));
+
+            // bounded by maxQuantity, so the difference fits a journal record
+            int delta = (int) (next - current);
+            if (delta == 0) {
+                return OptionalLong.of(current);
+            }
+            if (!journal.append(productId, delta)) {
+                // a delta, not a reset to current: adjustments made in between stay
+                counter.available.addAndGet(-delta);
+                return OptionalLong.empty();
+            }
+            counter.pending.add(delta);
+            return OptionalLong.of(current);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private SkuCounter load(Long productId) {
+        Product product = productRepository.getCurrentProduct(productId);
+        if (product == null) {
+            throw new NotFoundException("Product with id: " + productId + " not found");
+        }
+        return new SkuCounter(product.getQuantity());
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // the sealed epoch stays in pendingFlush and in the journal, the next run retries it
+            logger.warn("Stock write-behind flush failed, retrying in {}", settings.getFlushInterval(), e);
+        }
+    }
+
+    void flush() {
+        flushThread = Thread.currentThread();
+        if (pendingFlush == null) {
+            lock.writeLock().lock();
+            try {
+                if (!journal.hasRecords()) {
+                    reloadStale();
+                    return;
+                }
+                Map<Long, Long> deltas = new HashMap<>();
+                counters.forEach((id, counter) -> {
+                    long delta = counter.pending.sumThenReset();
+                    if (delta != 0) {
+                        deltas.put(id, delta);
+                    }
+                });
+                pendingFlush = new PendingFlush(journal.rotate(), deltas);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<Product> changed = stockJournalRepository.applyEpoch(pendingFlush.epoch(), pendingFlush.deltas());
+        journal.release(pendingFlush.epoch());
+        Map<Long, Long> applied = pendingFlush.deltas();
+        pendingFlush = null;
+        publishChanges(changed, applied);
+
+        lock.writeLock().lock();
+        try {
+            reloadStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void publishChanges(List<Product> changed, Map<Long, Long> deltas) {
+        for (Product product : changed) {
+            int previousQuantity = (int) (product.getQuantity() - deltas.get(product.getId()));
+            eventPublisher.publishEvent(new ProductUpdatedEvent(product, previousQuantity));
+        }
+    }
+
+    // under the write lock: the database holds every flushed delta, pending holds the rest
+    private void reloadStale() {
+        counters.forEach((id, counter) -> {
+            if (!counter.stale) {
+                return;
+            }
+            Product product = productRepository.getCurrentProduct(id);
+            if (product == null) {
+                counters.remove(id);
+                return;
+            }
+            counter.available.set(product.getQuantity() + counter.pending.sum());
+            counter.stale = false;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductUpdated(ProductUpdatedEvent event) {
+        // events from our own flush already match the buffered quantity
+        if (Thread.currentThread() != flushThread) {
+            markStale(event.product().getId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductDeleted(ProductDeletedEvent event) {
+        markStale(event.id());
+    }
+
+    private void markStale(Long productId) {
+        SkuCounter counter = counters.get(productId);
+        if (counter != null) {
+            counter.stale = true;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(settings.getFlushInterval().toMillis() * 10, TimeUnit.MILLISECONDS);
+        try {
+            // drains what is buffered; a failure here leaves it in the journal for the next start
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Final stock write-behind flush failed, the journal will be replayed on startup", e);
+        }
+        journal.close();
+    }
+}
@@ -0,0 +1,29 @@
+package org.hrd.hibernatejpa01.util;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response timestamps with millisecond resolution. Every response built within the same millisecond
+ * shares one {@link LocalDateTime} instead of allocating its own.
+ */
+public final class CoarseClock {
+
+    private record Tick(long millis, LocalDateTime time) {
+    }
+
+    private static volatile Tick last = new Tick(System.currentTimeMillis(), LocalDateTime.now());
+
+    private CoarseClock() {
+    }
+
+    public static LocalDateTime now() {
+        long millis = System.currentTimeMillis();
+        Tick tick = last;
+        if (tick.millis() != millis) {
+            // racing threads may each build one; whichever write wins is equally correct
+            tick = new Tick(millis, LocalDateTime.now());
+            last = tick;
+        }
+        return tick.time();
+    }
+}
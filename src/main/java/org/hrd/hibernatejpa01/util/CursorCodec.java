@@ -0,0 +1,45 @@
+package org.hrd.hibernatejpa01.util;
+
+import org.hrd.hibernatejpa01.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset pagination positions (the sort key values of the last row of a page)
+ * into opaque URL-safe tokens and back.
+ */
+public final class CursorCodec {
+
+    private static final String VERSION = "v1";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(long... keys) {
+        StringBuilder raw = new StringBuilder(VERSION);
+        for (long key : keys) {
+            raw.append(':').append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static long[] decode(String cursor, int keyCount) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(":");
+            if (parts.length != keyCount + 1 || !VERSION.equals(parts[0])) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            long[] keys = new long[keyCount];
+            for (int i = 0; i < keyCount; i++) {
+                keys[i] = Long.parseLong(parts[i + 1]);
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            // covers malformed Base64 and NumberFormatException
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+-- Baseline schema. Matches what Hibernate's ddl-auto created before migrations took over,
+-- so it is a no-op on existing databases.
+create sequence if not exists products_seq start with 1 increment by 50;
+
+create table if not exists products (
+    id       bigint           not null primary key,
+    name     varchar(100)     not null,
+    price    double precision not null,
+    quantity integer          not null
+);
+
+-- Databases that still hold IDENTITY-generated rows: move the pooled sequence past them.
+select setval('products_seq', max(id) + 50) from products having max(id) is not null;
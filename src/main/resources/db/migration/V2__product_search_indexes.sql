@@ -0,0 +1,6 @@
+-- trigram GiST index: serves LIKE '%term%' filters and the <-> distance ordering of ranked search
+create extension if not exists pg_trgm;
+create index if not exists idx_products_name_trgm on products using gist (lower(name) gist_trgm_ops);
+
+-- C-collation btree: serves prefix LIKE 'term%' and returns rows already in name order for typeahead
+create index if not exists idx_products_name_prefix on products ((lower(name) collate "C"));
@@ -0,0 +1,3 @@
+-- Covering index for the low-stock projection: rows come back in (quantity, id) order and
+-- name/price are read from the index itself, so keyset pages are index-only scans.
+create index if not exists idx_products_quantity on products (quantity, id) include (name, price);
@@ -0,0 +1,2 @@
+-- optimistic locking column for Product.version
+alter table products add column if not exists version bigint not null default 0;
@@ -0,0 +1,7 @@
+-- last write-behind journal epoch applied to products; makes journal replay idempotent
+create table if not exists stock_journal_checkpoint (
+    id    integer not null primary key,
+    epoch bigint  not null
+);
+
+insert into stock_journal_checkpoint (id, epoch) values (1, 0) on conflict (id) do nothing;
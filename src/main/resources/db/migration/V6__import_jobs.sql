@@ -0,0 +1,20 @@
+-- asynchronous imports: one row per job, one row per committed chunk
+create table if not exists import_jobs (
+    id          uuid          not null primary key,
+    format      varchar(16)   not null,
+    spool_path  varchar(1024) not null,
+    status      varchar(16)   not null,
+    error       varchar(1000),
+    created_at  timestamp     not null,
+    started_at  timestamp,
+    finished_at timestamp
+);
+
+-- written in the same transaction as the chunk's products, so a resumed job skips exactly these
+create table if not exists import_job_chunks (
+    job_id   uuid    not null references import_jobs (id) on delete cascade,
+    chunk    integer not null,
+    accepted integer not null,
+    rejected integer not null,
+    primary key (job_id, chunk)
+);
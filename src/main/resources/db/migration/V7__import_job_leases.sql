@@ -0,0 +1,4 @@
+-- the instance running or holding a job, and when it last said so; a job is only resumed elsewhere
+-- once its heartbeat is older than the lease timeout
+alter table import_jobs add column if not exists owner varchar(64);
+alter table import_jobs add column if not exists heartbeat_at timestamptz;
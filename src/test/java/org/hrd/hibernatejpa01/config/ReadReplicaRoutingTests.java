@@ -0,0 +1,158 @@
+package org.hrd.hibernatejpa01.config;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.flywaydb.core.Flyway;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.repository.ProductRepository;
+import org.hrd.hibernatejpa01.service.ProductService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two independent embedded PostgreSQL servers stand in for a primary and its replica. Without real
+ * replication, a row written to only one of them shows which server a transaction was routed to.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        // checks are triggered by the tests
+        "product.read-replicas.lag-check-interval=1h"
+})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReadReplicaRoutingTests {
+
+    private static final String REPLICA_ONLY = "replica-only-" + UUID.randomUUID().toString().substring(0, 8);
+    private static final long REPLICA_ONLY_ID = 1000000L;
+
+    private static EmbeddedPostgres primary;
+    private static EmbeddedPostgres replica;
+    private static boolean replicaStopped;
+
+    @DynamicPropertySource
+    static void dataSources(DynamicPropertyRegistry registry) throws IOException, SQLException {
+        primary = EmbeddedPostgres.start();
+        replica = EmbeddedPostgres.start();
+        // the application migrates the primary; a real replica would receive the schema through replication
+        Flyway.configure().dataSource(replica.getPostgresDatabase()).load().migrate();
+        try (Connection connection = replica.getPostgresDatabase().getConnection();
+             PreparedStatement insert = connection.prepareStatement(
+                     "insert into products (id, name, price, quantity) values (?, ?, 1.0, 1)")) {
+            insert.setLong(1, REPLICA_ONLY_ID);
+            insert.setString(2, REPLICA_ONLY);
+            insert.executeUpdate();
+        }
+        registry.add("spring.datasource.url", () -> primary.getJdbcUrl("postgres", "postgres"));
+        registry.add("product.read-replicas.urls", () -> replica.getJdbcUrl("postgres", "postgres"));
+    }
+
+    @AfterAll
+    static void stopDatabases() throws IOException {
+        if (!replicaStopped) {
+            replica.close();
+        }
+        primary.close();
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void checkReplicas() {
+        replicaRoutingDataSource.checkReplicas();
+    }
+
+    @Test
+    @Order(1)
+    void readOnlyTransactionsAreServedByTheReplica() {
+        assertThat(productRepository.findProductBySearchName(REPLICA_ONLY, 10))
+                .extracting("name")
+                .containsExactly(REPLICA_ONLY);
+    }
+
+    @Test
+    @Order(2)
+    void replicaReadsDoNotPopulateTheSecondLevelCache() {
+        // the row exists only on the replica, like a row the primary changed and the replica has not caught up on
+        Cache cache = entityManagerFactory.getCache();
+        cache.evict(Product.class, REPLICA_ONLY_ID);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Product product = readOnly.execute(status -> entityManager.find(Product.class, REPLICA_ONLY_ID));
+
+        assertThat(product).isNotNull().extracting(Product::getName).isEqualTo(REPLICA_ONLY);
+        assertThat(cache.contains(Product.class, REPLICA_ONLY_ID)).isFalse();
+    }
+
+    @Test
+    @Order(3)
+    void writesGoToThePrimary() throws SQLException {
+        String name = "primary-only-" + UUID.randomUUID().toString().substring(0, 8);
+
+        productService.createProducts(List.of(new ProductRequest(name, 2.0, 5)));
+
+        assertThat(countByName(primary, name)).isEqualTo(1);
+        assertThat(countByName(replica, name)).isZero();
+    }
+
+    @Test
+    @Order(4)
+    void readsFallBackToThePrimaryWhenTheReplicaIsDown() throws IOException {
+        replica.close();
+        replicaStopped = true;
+        replicaRoutingDataSource.checkReplicas();
+
+        assertThat(productRepository.findProductBySearchName(REPLICA_ONLY, 10)).isEmpty();
+        assertThat(productRepository.findProductBySearchName("primary-only-", 10)).isNotEmpty();
+    }
+
+    private static int countByName(EmbeddedPostgres database, String name) throws SQLException {
+        try (Connection connection = database.getPostgresDatabase().getConnection();
+             PreparedStatement query = connection.prepareStatement("select count(*) from products where name = ?")) {
+            query.setString(1, name);
+            try (ResultSet rs = query.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.hrd.hibernatejpa01.repository;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.dto.response.ProductResponse;
+import org.hrd.hibernatejpa01.model.dto.response.ProductSuggestion;
+import org.hrd.hibernatejpa01.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class ProductSearchTests {
+
+    @Autowired
+    private ProductService productService;
+
+    // unique per test so rows created by other tests sharing the database never match
+    private final String token = UUID.randomUUID().toString().substring(0, 8);
+
+    @Test
+    void searchRanksCloserNamesFirst() {
+        productService.createProducts(List.of(
+                new ProductRequest("Wireless " + token + " keyboard with numeric pad and backlight", 30.0, 5),
+                new ProductRequest(token + " mouse", 10.0, 5)));
+
+        List<ProductResponse> result = productService.findProductBySearchName(token.toUpperCase(), 10);
+
+        assertThat(result).extracting(ProductResponse::getName).containsExactly(
+                token + " mouse",
+                "Wireless " + token + " keyboard with numeric pad and backlight");
+    }
+
+    @Test
+    void searchIsAlwaysBounded() {
+        List<ProductRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            requests.add(new ProductRequest("item " + token + " " + i, 1.0, 1));
+        }
+        productService.createProducts(requests);
+
+        assertThat(productService.findProductBySearchName(token, null)).hasSize(20);
+        assertThat(productService.findProductBySearchName(token, 1000)).hasSize(100);
+    }
+
+    @Test
+    void searchTreatsLikeWildcardsLiterally() {
+        productService.createProducts(List.of(new ProductRequest(token + " 100% cotton", 5.0, 1)));
+
+        assertThat(productService.findProductBySearchName(token + " 100%", 10)).hasSize(1);
+        assertThat(productService.findProductBySearchName(token + "_", 10)).isEmpty();
+    }
+
+    @Test
+    void typeaheadMatchesNamePrefixInOrder() {
+        productService.createProducts(List.of(
+                new ProductRequest(token + "-beta", 1.0, 1),
+                new ProductRequest(token + "-alpha", 1.0, 1),
+                new ProductRequest("not " + token, 1.0, 1)));
+
+        List<ProductSuggestion> suggestions = productService.typeahead(token.toUpperCase() + "-", 10);
+
+        assertThat(suggestions).extracting(ProductSuggestion::getName)
+                .containsExactly(token + "-alpha", token + "-beta");
+    }
+}
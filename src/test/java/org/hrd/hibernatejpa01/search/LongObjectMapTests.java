@@ -0,0 +1,43 @@
+package org.hrd.hibernatejpa01.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongObjectMapTests {
+
+    @Test
+    void behavesLikeAHashMapThroughGrowthAndRemovals() {
+        LongObjectMap<String> map = new LongObjectMap<>(4);
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            // a small key range, so removals keep hitting probe chains that wrap and collide
+            long key = random.nextInt(2_000) - 1_000;
+            switch (random.nextInt(3)) {
+                case 0 -> assertThat(map.put(key, "v" + i)).isEqualTo(expected.put(key, "v" + i));
+                case 1 -> assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+                default -> assertThat(map.get(key)).isEqualTo(expected.get(key));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+    }
+
+    @Test
+    void computeIfAbsentCreatesOnlyOnce() {
+        LongObjectMap<LongPostings> map = new LongObjectMap<>();
+
+        LongPostings first = map.computeIfAbsent(7L, key -> new LongPostings());
+        LongPostings second = map.computeIfAbsent(7L, key -> new LongPostings());
+
+        assertThat(second).isSameAs(first);
+        assertThat(map.size()).isEqualTo(1);
+    }
+}
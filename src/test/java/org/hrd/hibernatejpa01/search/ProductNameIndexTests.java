@@ -0,0 +1,99 @@
+package org.hrd.hibernatejpa01.search;
+
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.event.ProductDeletedEvent;
+import org.hrd.hibernatejpa01.event.ProductUpdatedEvent;
+import org.hrd.hibernatejpa01.event.ProductsCreatedEvent;
+import org.hrd.hibernatejpa01.model.dto.response.ProductSuggestion;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ProductNameIndexTests {
+
+    private ProductRepository productRepository;
+    private ProductNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ProductProperties properties = new ProductProperties();
+        properties.getSearch().setIndexMaxGram(3);
+        productRepository = mock(ProductRepository.class);
+        index = new ProductNameIndex(productRepository, properties);
+        index.onProductsCreated(new ProductsCreatedEvent(List.of(
+                product(1L, "Apple iPhone"),
+                product(2L, "apricot jam"),
+                product(3L, "Banana"),
+                product(7L, "APPLE Watch"))));
+    }
+
+    @Test
+    void shortPrefixesComeStraightFromPostings() {
+        assertThat(names(index.suggest("ap", 10))).containsExactly("Apple iPhone", "apricot jam", "APPLE Watch");
+        assertThat(names(index.suggest("AP", 2))).containsExactly("Apple iPhone", "apricot jam");
+    }
+
+    @Test
+    void longPrefixesAreVerifiedAgainstTheName() {
+        assertThat(names(index.suggest("apple w", 10))).containsExactly("APPLE Watch");
+        assertThat(index.suggest("appz", 10)).isEmpty();
+    }
+
+    @Test
+    void updatesAndDeletesAreReflected() {
+        index.onProductUpdated(new ProductUpdatedEvent(product(3L, "Apple pie"), 1));
+        index.onProductDeleted(new ProductDeletedEvent(1L));
+
+        assertThat(names(index.suggest("app", 10))).containsExactly("Apple pie", "APPLE Watch");
+        assertThat(index.suggest("ban", 10)).isEmpty();
+    }
+
+    @Test
+    void idsBeyondIntRangeAreIndexed() {
+        long id = Integer.MAX_VALUE + 10L;
+        index.onProductsCreated(new ProductsCreatedEvent(List.of(product(id, "Cherry"))));
+
+        assertThat(index.suggest("che", 10)).extracting(ProductSuggestion::getId).containsExactly(id);
+
+        index.onProductDeleted(new ProductDeletedEvent(id));
+        assertThat(index.suggest("che", 10)).isEmpty();
+    }
+
+    @Test
+    void startupScanDoesNotReviveProductsChangedMeanwhile() {
+        doAnswer(invocation -> {
+            Consumer<ProductSuggestion> consumer = invocation.getArgument(0);
+            // both commit after the scan's snapshot was taken but before it reaches their rows
+            index.onProductDeleted(new ProductDeletedEvent(3L));
+            index.onProductUpdated(new ProductUpdatedEvent(product(2L, "Blueberry jam"), 1));
+            consumer.accept(new ProductSuggestion(2L, "apricot jam"));
+            consumer.accept(new ProductSuggestion(3L, "Banana"));
+            consumer.accept(new ProductSuggestion(9L, "Cherry"));
+            return null;
+        }).when(productRepository).scanProductNames(any());
+
+        index.build();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.suggest("ban", 10)).isEmpty();
+        assertThat(names(index.suggest("b", 10))).containsExactly("Blueberry jam");
+        assertThat(names(index.suggest("che", 10))).containsExactly("Cherry");
+    }
+
+    private static Product product(Long id, String name) {
+        return Product.builder().id(id).name(name).price(1.0).quantity(1).build();
+    }
+
+    private static List<String> names(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::getName).toList();
+    }
+}
@@ -0,0 +1,174 @@
+package org.hrd.hibernatejpa01.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.hrd.hibernatejpa01.exception.ConflictException;
+import org.hrd.hibernatejpa01.model.dto.response.ImportJobResponse;
+import org.hrd.hibernatejpa01.model.entity.ImportJob;
+import org.hrd.hibernatejpa01.model.enums.ImportFormat;
+import org.hrd.hibernatejpa01.model.enums.ImportJobStatus;
+import org.hrd.hibernatejpa01.repository.ImportJobRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        // small chunks, so a handful of rows spans several of them
+        "product.bulk.import-chunk-size=2",
+        // long enough that the background lease keeper stays out of these tests
+        "product.import-jobs.lease-timeout=1h"
+})
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class ImportJobServiceTests {
+
+    private static Path spoolDir;
+
+    @DynamicPropertySource
+    static void spool(DynamicPropertyRegistry registry) throws IOException {
+        spoolDir = Files.createTempDirectory("import-spool");
+        registry.add("product.import-jobs.spool-dir", spoolDir::toString);
+    }
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String token = UUID.randomUUID().toString().substring(0, 8);
+
+    @Test
+    void submittedJobImportsEveryChunkAndReportsProgress() throws InterruptedException {
+        String input = rows(0, 4) + "{\"name\":\"" + token + " bad\",\"price\":1.0,\"quantity\":0}\n";
+
+        ImportJobResponse submitted = importJobService.submitJob(stream(input), ImportFormat.NDJSON);
+        ImportJobResponse finished = awaitFinished(submitted.getId());
+
+        assertThat(finished.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(finished.getChunksCommitted()).isEqualTo(3);
+        assertThat(finished.getRowsProcessed()).isEqualTo(5);
+        assertThat(finished.getRowsFailed()).isEqualTo(1);
+        assertThat(productsNamed(token + " %")).isEqualTo(4);
+        assertThat(Files.exists(Path.of(importJobRepository.getJob(submitted.getId()).getSpoolPath()))).isFalse();
+    }
+
+    @Test
+    void cancellingAFinishedJobIsRefused() throws InterruptedException {
+        ImportJobResponse submitted = importJobService.submitJob(stream(rows(0, 1)), ImportFormat.NDJSON);
+        awaitFinished(submitted.getId());
+
+        assertThatThrownBy(() -> importJobService.cancelJob(submitted.getId()))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("COMPLETED");
+    }
+
+    @Test
+    void cancelWinsOverAJobThreadThatFinishesLater() throws IOException {
+        ImportJob job = queuedJob(rows(0, 2), "other-instance");
+
+        assertThat(importJobService.cancelJob(job.getId()).getStatus()).isEqualTo(ImportJobStatus.CANCELLED);
+        assertThat(Files.exists(Path.of(job.getSpoolPath()))).isFalse();
+
+        // what a job thread that was already past its cancel check would do next
+        assertThat(importJobRepository.markStarted(job.getId(), "other-instance")).isFalse();
+        assertThat(importJobRepository.markFinished(job.getId(), ImportJobStatus.COMPLETED, null)).isFalse();
+        assertThat(importJobRepository.getJob(job.getId()).getStatus()).isEqualTo(ImportJobStatus.CANCELLED);
+    }
+
+    @Test
+    void resumedJobSkipsCommittedChunks() throws IOException, InterruptedException {
+        ImportJob job = queuedJob(rows(0, 5), "stopped-instance");
+        expireLease(job.getId());
+        // chunk 0 (rows 0 and 1) committed before the restart; recorded without products to tell them apart
+        importJobRepository.commitChunk(job.getId(), 0, List.of(), 0);
+
+        importJobService.resumeJobs();
+        ImportJobResponse finished = awaitFinished(job.getId());
+
+        assertThat(finished.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(finished.getChunksCommitted()).isEqualTo(3);
+        assertThat(productsNamed(token + " 0")).isZero();
+        assertThat(productsNamed(token + " 1")).isZero();
+        assertThat(productsNamed(token + " %")).isEqualTo(3);
+    }
+
+    @Test
+    void jobLeasedByALiveInstanceIsNotResumed() throws IOException, InterruptedException {
+        ImportJob job = queuedJob(rows(0, 2), "live-instance");
+
+        importJobService.resumeJobs();
+        Thread.sleep(200);
+
+        assertThat(importJobService.getJob(job.getId()).getStatus()).isEqualTo(ImportJobStatus.QUEUED);
+        assertThat(productsNamed(token + " %")).isZero();
+        assertThat(importJobRepository.claimJob(job.getId(), "another-instance", Duration.ofHours(1))).isFalse();
+
+        expireLease(job.getId());
+        assertThat(importJobRepository.claimJob(job.getId(), "another-instance", Duration.ofHours(1))).isTrue();
+        importJobService.cancelJob(job.getId());
+    }
+
+    private void expireLease(UUID id) {
+        jdbcTemplate.update("update import_jobs set heartbeat_at = now() - interval '2 hours' where id = ?", id);
+    }
+
+    private ImportJob queuedJob(String input, String owner) throws IOException {
+        UUID id = UUID.randomUUID();
+        Path spool = spoolDir.resolve(id + ".ndjson");
+        Files.writeString(spool, input);
+        ImportJob job = ImportJob.builder()
+                .id(id)
+                .format(ImportFormat.NDJSON)
+                .spoolPath(spool.toString())
+                .status(ImportJobStatus.QUEUED)
+                .createdAt(LocalDateTime.now())
+                .build();
+        importJobRepository.createJob(job, owner);
+        return job;
+    }
+
+    private ImportJobResponse awaitFinished(UUID id) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        ImportJobResponse job = importJobService.getJob(id);
+        while (!job.getStatus().isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            job = importJobService.getJob(id);
+        }
+        return job;
+    }
+
+    private String rows(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> "{\"name\":\"" + token + " " + i + "\",\"price\":1.0,\"quantity\":1}\n")
+                .collect(Collectors.joining());
+    }
+
+    private int productsNamed(String pattern) {
+        return jdbcTemplate.queryForObject("select count(*) from products where name like ?", Integer.class, pattern);
+    }
+
+    private static ByteArrayInputStream stream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,137 @@
+package org.hrd.hibernatejpa01.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.hrd.hibernatejpa01.support.SqlStatementCounter;
+import org.hrd.hibernatejpa01.util.CursorCodec;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement budgets for the ProductService operations. A new query per row (N+1) or a lost JDBC
+ * batch fails the build here instead of showing up in production.
+ */
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@Import(ProductServiceQueryBudgetTests.CounterConfig.class)
+class ProductServiceQueryBudgetTests {
+
+    @TestConfiguration
+    static class CounterConfig {
+        @Bean
+        SqlStatementCounter sqlStatementCounter() {
+            return new SqlStatementCounter();
+        }
+    }
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @Autowired
+    private ProductProperties productProperties;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final String token = UUID.randomUUID().toString().substring(0, 8);
+
+    @Test
+    void createProductsSendsOneInsertPerBatch() {
+        int rows = 120;
+        int batchSize = productProperties.getBulk().getBatchSize();
+
+        counter.start();
+        productService.createProducts(requests(rows));
+        List<String> statements = counter.stop();
+
+        assertThat(SqlStatementCounter.count(statements, "insert"))
+                .as("inserts for %d rows with batch size %d: %s", rows, batchSize, statements)
+                .isLessThanOrEqualTo((rows + batchSize - 1) / batchSize);
+        // the pooled sequence hands out 50 ids per call
+        assertThat(SqlStatementCounter.count(statements, "select"))
+                .as("sequence calls: %s", statements)
+                .isLessThanOrEqualTo((rows + 49) / 50 + 1);
+    }
+
+    @Test
+    void offsetPageUsesAtMostTwoStatements() {
+        productService.createProducts(requests(30));
+
+        counter.start();
+        productService.getAllProducts(1, 20);
+        List<String> statements = counter.stop();
+
+        // the page itself plus, at most, the count
+        assertThat(statements).as("%s", statements).hasSizeLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void keysetPageAndSearchUseOneStatement() {
+        productService.createProducts(requests(30));
+
+        counter.start();
+        productService.findProductBySearchName(token, 20);
+        List<String> statements = counter.stop();
+        assertThat(statements).as("%s", statements).hasSize(1);
+
+        counter.start();
+        productService.getProductsAfter(CursorCodec.encode(0), 20);
+        statements = counter.stop();
+        assertThat(statements).as("%s", statements).hasSize(1);
+    }
+
+    @Test
+    void updateLoadsAndWritesOnce() {
+        Product product = productService.createProducts(requests(1)).get(0);
+
+        counter.start();
+        productService.updateProduct(product.getId(), new ProductRequest(token + " renamed", 2.0, 3), null);
+        List<String> statements = counter.stop();
+
+        assertThat(SqlStatementCounter.count(statements, "select")).as("%s", statements).isLessThanOrEqualTo(1);
+        assertThat(SqlStatementCounter.count(statements, "update")).as("%s", statements).isEqualTo(1);
+    }
+
+    @Test
+    void cachedProductByIdBorrowsNoConnection() {
+        Product product = productService.createProducts(requests(1)).get(0);
+        // the first read fills the second-level cache if the insert did not
+        productService.getProductById(product.getId());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        counter.start();
+        productService.getProductById(product.getId());
+        List<String> statements = counter.stop();
+
+        assertThat(statements).as("%s", statements).isEmpty();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getConnectCount()).as("connections borrowed").isZero();
+    }
+
+    private List<ProductRequest> requests(int rows) {
+        List<ProductRequest> requests = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            requests.add(new ProductRequest("budget " + token + " " + i, 1.0 + i, 1 + i));
+        }
+        return requests;
+    }
+}
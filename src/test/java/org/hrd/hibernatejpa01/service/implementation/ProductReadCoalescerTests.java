@@ -0,0 +1,188 @@
+package org.hrd.hibernatejpa01.service.implementation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.event.ProductUpdatedEvent;
+import org.hrd.hibernatejpa01.model.dto.response.ProductResponse;
+import org.hrd.hibernatejpa01.model.entity.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductReadCoalescerTests {
+
+    private MeterRegistry meterRegistry;
+    private ProductReadCoalescer coalescer;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        ProductProperties properties = new ProductProperties();
+        properties.getSingleFlight().setMaxWait(Duration.ofSeconds(5));
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new ProductReadCoalescer(properties, meterRegistry);
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void waiterSharesTheLeadersQuery() throws Exception {
+        BlockingLoader<ProductResponse> leader = new BlockingLoader<>(() -> response(1L, "shared"));
+        AtomicInteger waiterLoads = new AtomicInteger();
+
+        Future<ProductResponse> first = callers.submit(() -> coalescer.getProductById(1L, leader));
+        leader.awaitStarted();
+        Future<ProductResponse> second = callers.submit(() -> coalescer.getProductById(1L, () -> {
+            waiterLoads.incrementAndGet();
+            return response(1L, "own");
+        }));
+        awaitWaiter();
+        leader.release();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getName()).isEqualTo("shared");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get());
+        assertThat(waiterLoads).hasValue(0);
+        assertThat(calls("product-by-id", "leader")).isEqualTo(1);
+        assertThat(calls("product-by-id", "shared")).isEqualTo(1);
+    }
+
+    @Test
+    void waiterRunsItsOwnQueryAfterMaxWait() throws Exception {
+        ProductProperties properties = new ProductProperties();
+        properties.getSingleFlight().setMaxWait(Duration.ofMillis(50));
+        coalescer = new ProductReadCoalescer(properties, meterRegistry);
+        BlockingLoader<ProductResponse> leader = new BlockingLoader<>(() -> response(1L, "slow"));
+
+        Future<ProductResponse> first = callers.submit(() -> coalescer.getProductById(1L, leader));
+        leader.awaitStarted();
+        try {
+            assertThat(coalescer.getProductById(1L, () -> response(1L, "own")).getName()).isEqualTo("own");
+            assertThat(calls("product-by-id", "timeout")).isEqualTo(1);
+        } finally {
+            leader.release();
+        }
+        assertThat(first.get(5, TimeUnit.SECONDS).getName()).isEqualTo("slow");
+    }
+
+    @Test
+    void leaderFailureReachesTheWaiters() throws Exception {
+        BlockingLoader<ProductResponse> leader = new BlockingLoader<>(() -> {
+            throw new IllegalStateException("database down");
+        });
+
+        Future<ProductResponse> first = callers.submit(() -> coalescer.getProductById(1L, leader));
+        leader.awaitStarted();
+        Future<ProductResponse> second = callers.submit(() -> coalescer.getProductById(1L, () -> response(1L, "own")));
+        awaitWaiter();
+        leader.release();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("database down");
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("database down");
+    }
+
+    @Test
+    void callsAfterAProductChangeDoNotJoinEarlierQueries() throws Exception {
+        BlockingLoader<ProductResponse> byId = new BlockingLoader<>(() -> response(1L, "before"));
+        BlockingLoader<List<ProductResponse>> search = new BlockingLoader<>(() -> List.of(response(1L, "before")));
+        Future<ProductResponse> oldById = callers.submit(() -> coalescer.getProductById(1L, byId));
+        Future<List<ProductResponse>> oldSearch = callers.submit(() -> coalescer.findProductBySearchName("bef", 10, search));
+        byId.awaitStarted();
+        search.awaitStarted();
+
+        coalescer.onProductUpdated(new ProductUpdatedEvent(Product.builder().id(1L).name("after").build(), 1));
+
+        try {
+            assertThat(coalescer.getProductById(1L, () -> response(1L, "after")).getName()).isEqualTo("after");
+            assertThat(coalescer.findProductBySearchName("bef", 10, List::of)).isEmpty();
+        } finally {
+            byId.release();
+            search.release();
+        }
+        assertThat(oldById.get(5, TimeUnit.SECONDS).getName()).isEqualTo("before");
+        assertThat(oldSearch.get(5, TimeUnit.SECONDS)).hasSize(1);
+    }
+
+    private double calls(String operation, String outcome) {
+        return meterRegistry.get("product.single-flight.calls")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+
+    // until the second call parks on the leader's future, releasing the leader could make it a leader itself
+    private static void awaitWaiter() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            long parked = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getState() == Thread.State.TIMED_WAITING)
+                    .filter(thread -> List.of(thread.getStackTrace()).stream()
+                            .anyMatch(frame -> frame.getClassName().equals(CompletableFuture.class.getName())))
+                    .count();
+            if (parked > 0) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("no caller started waiting for the shared query");
+    }
+
+    private static ProductResponse response(Long id, String name) {
+        return new ProductResponse(id, name, 1.0, 1, 0L);
+    }
+
+    // holds the query open until the test releases it, so other calls arrive while it runs
+    private static final class BlockingLoader<V> implements Supplier<V> {
+
+        private final Supplier<V> result;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        BlockingLoader(Supplier<V> result) {
+            this.result = result;
+        }
+
+        @Override
+        public V get() {
+            started.countDown();
+            try {
+                released.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result.get();
+        }
+
+        void awaitStarted() throws InterruptedException {
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.hrd.hibernatejpa01.stock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockJournalTests {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void appendedRecordsAreRecoveredAfterReopening() throws IOException {
+        try (StockJournal journal = new StockJournal(directory, 8)) {
+            journal.start(1);
+            journal.append(1L, 5);
+            journal.append(1L, -2);
+            journal.append(2L, 3);
+        }
+
+        try (StockJournal journal = new StockJournal(directory, 8)) {
+            assertThat(journal.recover()).containsExactly(new StockJournal.Segment(1, Map.of(1L, 3L, 2L, 3L)));
+        }
+    }
+
+    @Test
+    void releasedEpochsAreNotRecovered() throws IOException {
+        try (StockJournal journal = new StockJournal(directory, 8)) {
+            journal.start(1);
+            journal.append(1L, -1);
+            assertThat(journal.rotate()).isEqualTo(1);
+            journal.append(1L, -4);
+            journal.release(1);
+        }
+
+        try (StockJournal journal = new StockJournal(directory, 8)) {
+            assertThat(journal.recover()).containsExactly(new StockJournal.Segment(2, Map.of(1L, -4L)));
+        }
+    }
+
+    @Test
+    void sealedButUnreleasedEpochsAreRecoveredOldestFirst() throws IOException {
+        try (StockJournal journal = new StockJournal(directory, 8)) {
+            journal.start(7);
+            journal.append(1L, -1);
+            journal.rotate();
+            journal.append(2L, -2);
+        }
+
+        try (StockJournal journal = new StockJournal(directory, 8)) {
+            List<StockJournal.Segment> recovered = journal.recover();
+            assertThat(recovered).containsExactly(
+                    new StockJournal.Segment(7, Map.of(1L, -1L)),
+                    new StockJournal.Segment(8, Map.of(2L, -2L)));
+        }
+    }
+
+    @Test
+    void leftoversOfAnOlderEpochInAReusedSegmentAreIgnored() throws IOException {
+        try (StockJournal journal = new StockJournal(directory, 8)) {
+            journal.start(1);
+            journal.append(1L, -1);
+            journal.append(1L, -1);
+            journal.append(1L, -1);
+            journal.rotate();
+            journal.release(1);
+            journal.rotate();
+            journal.release(2);
+            // epoch 3 reuses the segment of epoch 1 without clearing its records
+            journal.append(2L, 6);
+        }
+
+        try (StockJournal journal = new StockJournal(directory, 8)) {
+            assertThat(journal.recover()).containsExactly(new StockJournal.Segment(3, Map.of(2L, 6L)));
+        }
+    }
+
+    @Test
+    void appendFailsOnceTheSegmentIsFullUntilRotated() throws IOException {
+        try (StockJournal journal = new StockJournal(directory, 2)) {
+            journal.start(1);
+            assertThat(journal.append(1L, -1)).isTrue();
+            assertThat(journal.append(1L, -1)).isTrue();
+            assertThat(journal.append(1L, -1)).isFalse();
+            assertThat(journal.hasRecords()).isTrue();
+
+            journal.rotate();
+            assertThat(journal.hasRecords()).isFalse();
+            assertThat(journal.append(1L, -1)).isTrue();
+        }
+    }
+
+    @Test
+    void startForgetsEverythingRecovered() throws IOException {
+        try (StockJournal journal = new StockJournal(directory, 8)) {
+            journal.start(1);
+            journal.append(1L, -1);
+        }
+
+        try (StockJournal journal = new StockJournal(directory, 8)) {
+            journal.start(2);
+        }
+
+        try (StockJournal journal = new StockJournal(directory, 8)) {
+            assertThat(journal.recover()).containsExactly(new StockJournal.Segment(2, Map.of()));
+        }
+    }
+}
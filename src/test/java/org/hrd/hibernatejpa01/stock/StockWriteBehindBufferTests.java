@@ -0,0 +1,181 @@
+package org.hrd.hibernatejpa01.stock;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.hrd.hibernatejpa01.config.ProductProperties;
+import org.hrd.hibernatejpa01.exception.ConflictException;
+import org.hrd.hibernatejpa01.model.dto.request.ProductRequest;
+import org.hrd.hibernatejpa01.repository.ProductRepository;
+import org.hrd.hibernatejpa01.repository.StockJournalRepository;
+import org.hrd.hibernatejpa01.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs buffers built by hand against the embedded database, so each test picks its own journal
+ * directory and capacity; the write-behind bean itself stays disabled.
+ */
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class StockWriteBehindBufferTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockJournalRepository stockJournalRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path journalDir;
+
+    @Test
+    void fullJournalIsFlushedInsteadOfBypassingTheBuffer() throws Exception {
+        Long id = createProduct(5);
+        StockWriteBehindBuffer buffer = buffer(stockJournalRepository, 2);
+        buffer.start();
+        try {
+            assertThat(buffer.adjust(id, -1, 10)).isEqualTo(4);
+            assertThat(buffer.adjust(id, -1, 10)).isEqualTo(3);
+            assertThat(databaseQuantity(id)).isEqualTo(5);
+
+            // the segment is full: the first two decrements are written before the third is taken
+            assertThat(buffer.adjust(id, -1, 10)).isEqualTo(2);
+            assertThat(databaseQuantity(id)).isEqualTo(3);
+
+            assertThat(buffer.adjust(id, -1, 10)).isEqualTo(1);
+            assertThat(buffer.adjust(id, -1, 10)).isEqualTo(0);
+            assertThatThrownBy(() -> buffer.adjust(id, -1, 10)).isInstanceOf(ConflictException.class);
+        } finally {
+            buffer.stop();
+        }
+        assertThat(databaseQuantity(id)).isEqualTo(0);
+    }
+
+    @Test
+    void fullJournalThatCannotBeFlushedRejectsTheAdjustment() throws Exception {
+        Long id = createProduct(5);
+        StockJournalRepository failing = mock(StockJournalRepository.class);
+        when(failing.applyEpoch(anyLong(), anyMap())).thenThrow(new IllegalStateException("database down"));
+        StockWriteBehindBuffer buffer = buffer(failing, 1);
+        buffer.start();
+        try {
+            assertThat(buffer.adjust(id, -1, 10)).isEqualTo(4);
+            assertThatThrownBy(() -> buffer.adjust(id, -1, 10)).isInstanceOf(ConflictException.class);
+            // a rejected adjustment leaves neither the buffer nor the database changed
+            assertThatThrownBy(() -> buffer.adjust(id, -5, 10))
+                    .isInstanceOf(ConflictException.class)
+                    .hasMessageContaining("Insufficient stock");
+        } finally {
+            buffer.stop();
+        }
+        assertThat(databaseQuantity(id)).isEqualTo(5);
+    }
+
+    @Test
+    void quantityOverwriteReplacesPendingDeltasInsteadOfAddingToThem() throws Exception {
+        Long id = createProduct(10);
+        StockWriteBehindBuffer buffer = buffer(stockJournalRepository, 8);
+        buffer.start();
+        try {
+            buffer.adjust(id, -3, 100);
+            assertThat(buffer.setQuantity(id, 0)).isEqualTo(7);
+            assertThatThrownBy(() -> buffer.adjust(id, -1, 100))
+                    .isInstanceOf(ConflictException.class)
+                    .hasMessageContaining("Insufficient stock");
+
+            buffer.flush();
+            assertThat(databaseQuantity(id)).isEqualTo(0);
+
+            assertThat(buffer.setQuantity(id, 4)).isEqualTo(0);
+            assertThat(buffer.adjust(id, -1, 100)).isEqualTo(3);
+        } finally {
+            buffer.stop();
+        }
+        assertThat(databaseQuantity(id)).isEqualTo(3);
+    }
+
+    @Test
+    void unflushedJournalIsReplayedOnStartupOnlyOnce() throws Exception {
+        Long id = createProduct(10);
+        try (StockJournal journal = new StockJournal(journalDir, 8)) {
+            journal.start(stockJournalRepository.getCheckpoint() + 1);
+            journal.append(id, -2);
+            journal.append(id, -1);
+        }
+
+        StockWriteBehindBuffer first = buffer(stockJournalRepository, 8);
+        first.start();
+        first.stop();
+        assertThat(databaseQuantity(id)).isEqualTo(7);
+
+        StockWriteBehindBuffer second = buffer(stockJournalRepository, 8);
+        second.start();
+        second.stop();
+        assertThat(databaseQuantity(id)).isEqualTo(7);
+    }
+
+    @Test
+    void epochAtOrBelowTheCheckpointIsNotAppliedAgain() {
+        Long id = createProduct(10);
+        long epoch = stockJournalRepository.getCheckpoint() + 1;
+
+        assertThat(stockJournalRepository.applyEpoch(epoch, Map.of(id, -4L))).hasSize(1);
+        assertThat(stockJournalRepository.getCheckpoint()).isEqualTo(epoch);
+        assertThat(stockJournalRepository.applyEpoch(epoch, Map.of(id, -4L))).isEmpty();
+        assertThat(databaseQuantity(id)).isEqualTo(6);
+    }
+
+    @Test
+    void startFailsWithoutAJournalDirectory() {
+        ProductProperties properties = new ProductProperties();
+        StockWriteBehindBuffer buffer = new StockWriteBehindBuffer(productRepository, stockJournalRepository,
+                eventPublisher, properties);
+
+        assertThatThrownBy(buffer::start).isInstanceOf(IllegalStateException.class);
+    }
+
+    private StockWriteBehindBuffer buffer(StockJournalRepository journalRepository, int capacity) {
+        ProductProperties properties = new ProductProperties();
+        ProductProperties.WriteBehind settings = properties.getStock().getWriteBehind();
+        settings.setEnabled(true);
+        settings.setJournalDir(journalDir.toString());
+        settings.setJournalCapacity(capacity);
+        // only the synchronous flushes run during a test
+        settings.setFlushInterval(Duration.ofHours(1));
+        return new StockWriteBehindBuffer(productRepository, journalRepository, eventPublisher, properties);
+    }
+
+    private Long createProduct(int quantity) {
+        String name = "stock " + UUID.randomUUID().toString().substring(0, 8);
+        return productService.createProducts(List.of(new ProductRequest(name, 1.0, quantity))).get(0).getId();
+    }
+
+    private int databaseQuantity(Long id) {
+        return jdbcTemplate.queryForObject("select quantity from products where id = ?", Integer.class, id);
+    }
+}
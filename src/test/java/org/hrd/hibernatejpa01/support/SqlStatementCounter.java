@@ -0,0 +1,45 @@
+package org.hrd.hibernatejpa01.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the statements Hibernate prepares on the thread that called {@link #start()}, so a test
+ * can hold an operation to a statement budget. Register it as a bean; SqlInstrumentationConfig
+ * chains it into Hibernate.
+ * <p>
+ * A JDBC batch is prepared once, so batched inserts count once per batch. Work done through raw
+ * JDBC ({@code Session.doReturningWork}) bypasses Hibernate and is not seen.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    private volatile Thread recording;
+
+    public void start() {
+        statements.clear();
+        recording = Thread.currentThread();
+    }
+
+    public List<String> stop() {
+        recording = null;
+        return List.copyOf(statements);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (Thread.currentThread() == recording) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    public static long count(List<String> statements, String verb) {
+        return statements.stream()
+                .filter(sql -> sql.stripLeading().toLowerCase(Locale.ROOT).startsWith(verb))
+                .count();
+    }
+}